@@ -3,12 +3,16 @@ package com.pub_game_be.config;
 import com.pub_game_be.domain.enums.GameStatus;
 import com.pub_game_be.domain.game.Game;
 import com.pub_game_be.repository.GameRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
 @Component
 public class DataInitializer implements CommandLineRunner {
 
+    private static final Logger log = LoggerFactory.getLogger(DataInitializer.class);
+
     private final GameRepository gameRepository;
 
     public DataInitializer(GameRepository gameRepository) {
@@ -21,7 +25,7 @@ public class DataInitializer implements CommandLineRunner {
             Game game = new Game();
             game.setStatus(GameStatus.CREATED);
             gameRepository.save(game);
-            System.out.println("✅ Partita iniziale creata con ID: " + game.getId());
+            log.info("✅ Partita iniziale creata con ID: {}", game.getId());
         }
     }
 }
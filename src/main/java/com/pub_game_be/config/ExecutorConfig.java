@@ -0,0 +1,87 @@
+package com.pub_game_be.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    @Bean(name = "questionPoolExecutor")
+    public ThreadPoolTaskExecutor questionPoolExecutor(
+            @Value("${game.question-pool.refill-threads:2}") int threads) {
+        return boundedExecutor("question-pool-", threads, 64);
+    }
+
+    @Bean(name = "arenaBatchExecutor")
+    public ThreadPoolTaskExecutor arenaBatchExecutor() {
+        return boundedExecutor("arena-batch-", 2, 32);
+    }
+
+    @Bean(name = "roundGenerationExecutor")
+    public ThreadPoolTaskExecutor roundGenerationExecutor(
+            @Value("${game.round-generation.threads:4}") int threads) {
+        return boundedExecutor("round-gen-", threads, 32);
+    }
+
+    @Bean(name = "llmExecutor")
+    public ThreadPoolTaskExecutor llmExecutor() {
+        return boundedExecutor("llm-", 8, 64);
+    }
+
+    @Bean(name = "imageLookupExecutor")
+    public ThreadPoolTaskExecutor imageLookupExecutor(
+            @Value("${images.resolver.threads:6}") int threads) {
+        return boundedExecutor("image-lookup-", threads, 64);
+    }
+
+    @Bean(name = "mediaFetchExecutor")
+    public ThreadPoolTaskExecutor mediaFetchExecutor(
+            @Value("${media.fetch-threads:4}") int threads) {
+        return boundedExecutor("media-fetch-", threads, 64);
+    }
+
+    @Bean(name = "blurRenderExecutor")
+    public ThreadPoolTaskExecutor blurRenderExecutor(
+            @Value("${media.blur.threads:2}") int threads) {
+        return boundedExecutor("blur-render-", threads, 32);
+    }
+
+    @Bean(name = "musicCatalogExecutor")
+    public ThreadPoolTaskExecutor musicCatalogExecutor(
+            @Value("${music.catalog.threads:6}") int threads) {
+        return boundedExecutor("music-catalog-", threads, 128);
+    }
+
+    /**
+     * 📥 Esecutore del clientInboundChannel STOMP. A coda piena il messaggio lo smaltisce il thread
+     * che l'ha letto dal socket: la connessione che sta inondando rallenta, le altre partite no.
+     */
+    @Bean(name = "clientInboundExecutor")
+    public ThreadPoolTaskExecutor clientInboundExecutor(
+            @Value("${scream.inbound.threads:8}") int threads,
+            @Value("${scream.inbound.queue-capacity:1000}") int queueCapacity) {
+        return boundedExecutor("ws-inbound-", threads, queueCapacity, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private ThreadPoolTaskExecutor boundedExecutor(String prefix, int threads, int queueCapacity) {
+        return boundedExecutor(prefix, threads, queueCapacity, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private ThreadPoolTaskExecutor boundedExecutor(String prefix, int threads, int queueCapacity,
+            RejectedExecutionHandler rejectedExecutionHandler) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setRejectedExecutionHandler(rejectedExecutionHandler);
+        executor.setThreadNamePrefix(prefix);
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
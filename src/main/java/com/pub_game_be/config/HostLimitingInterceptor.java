@@ -0,0 +1,176 @@
+package com.pub_game_be.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🚦 Limita le richieste concorrenti verso ogni upstream (Groq, TMDB, iTunes, Pexels...)
+ * e raccoglie latenza e saturazione per host. Il permesso resta occupato finché il corpo della risposta
+ * non viene chiuso: uno stream Groq o un download di media conta per tutta la sua durata, e la latenza
+ * registrata comprende la lettura del corpo.
+ */
+public class HostLimitingInterceptor implements ClientHttpRequestInterceptor {
+
+    private final int maxConcurrentPerHost;
+    private final long acquireTimeoutMs;
+
+    private final Map<String, HostStats> hosts = new ConcurrentHashMap<>();
+
+    public HostLimitingInterceptor(int maxConcurrentPerHost, long acquireTimeoutMs) {
+        this.maxConcurrentPerHost = maxConcurrentPerHost;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        String host = request.getURI().getHost();
+        HostStats stats = hosts.computeIfAbsent(host == null ? "unknown" : host, h -> new HostStats());
+
+        if (!stats.permits.tryAcquire()) {
+            stats.waited.increment();
+            try {
+                if (!stats.permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    stats.rejected.increment();
+                    throw new ResourceAccessException("Troppe richieste concorrenti verso " + host);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ResourceAccessException("Interrotto in attesa di " + host);
+            }
+        }
+
+        int inFlight = stats.inFlight.incrementAndGet();
+        stats.maxInFlight.accumulateAndGet(inFlight, Math::max);
+        stats.requests.increment();
+        long start = System.nanoTime();
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            if (response.getStatusCode().isError()) {
+                stats.errors.increment();
+            }
+            return new LimitedResponse(response, stats, start);
+        } catch (IOException | RuntimeException e) {
+            stats.errors.increment();
+            stats.finish(start);
+            throw e;
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new TreeMap<>();
+        hosts.forEach((host, stats) -> out.put(host, stats.toMap()));
+        return out;
+    }
+
+    private final class HostStats {
+        private final Semaphore permits = new Semaphore(maxConcurrentPerHost);
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder waited = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder totalLatencyMs = new LongAdder();
+
+        private void finish(long startNanos) {
+            totalLatencyMs.add((System.nanoTime() - startNanos) / 1_000_000);
+            inFlight.decrementAndGet();
+            permits.release();
+        }
+
+        private Map<String, Object> toMap() {
+            long count = requests.sum();
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("requests", count);
+            out.put("errors", errors.sum());
+            out.put("avgLatencyMs", count == 0 ? 0 : totalLatencyMs.sum() / count);
+            out.put("inFlight", inFlight.get());
+            out.put("maxInFlight", maxInFlight.get());
+            out.put("limit", maxConcurrentPerHost);
+            out.put("saturation", (double) inFlight.get() / maxConcurrentPerHost);
+            out.put("waited", waited.sum());
+            out.put("rejected", rejected.sum());
+            return out;
+        }
+    }
+
+    /**
+     * Restituisce il permesso una sola volta, alla chiusura del corpo o della risposta (RestTemplate chiude
+     * sempre la risposta dopo l'extractor).
+     */
+    private static final class LimitedResponse implements ClientHttpResponse {
+        private final ClientHttpResponse delegate;
+        private final HostStats stats;
+        private final long startNanos;
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private LimitedResponse(ClientHttpResponse delegate, HostStats stats, long startNanos) {
+            this.delegate = delegate;
+            this.stats = stats;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return new FilterInputStream(delegate.getBody()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        finish();
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                finish();
+            }
+        }
+
+        private void finish() {
+            if (finished.compareAndSet(false, true)) {
+                stats.finish(startNanos);
+            }
+        }
+    }
+}
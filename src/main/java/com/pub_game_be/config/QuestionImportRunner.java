@@ -0,0 +1,66 @@
+package com.pub_game_be.config;
+
+import com.pub_game_be.dto.ImportReportDto;
+import com.pub_game_be.service.QuestionImportReader;
+import com.pub_game_be.service.QuestionImportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 📦 Import da riga di comando: con {@code --import-questions=domande.csv[,altre.jsonl]} importa i file
+ * (formato dall'estensione: .csv, altrimenti JSONL) e chiude l'applicazione, con exit code 1 se qualcosa fallisce.
+ * Ha senso con un database persistente, ad esempio
+ * {@code java -jar pub_game_BE.jar --spring.profiles.active=mysql --spring.main.web-application-type=none --import-questions=domande.csv}.
+ */
+@Component
+public class QuestionImportRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(QuestionImportRunner.class);
+
+    private final QuestionImportService questionImportService;
+    private final ConfigurableApplicationContext context;
+
+    public QuestionImportRunner(QuestionImportService questionImportService, ConfigurableApplicationContext context) {
+        this.questionImportService = questionImportService;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> files = args.getOptionValues("import-questions");
+        if (files == null) {
+            return;
+        }
+
+        boolean failed = false;
+        for (String value : files) {
+            for (String file : value.split(",")) {
+                Path path = Path.of(file.trim());
+                QuestionImportReader.Format format = path.toString().toLowerCase().endsWith(".csv")
+                        ? QuestionImportReader.Format.CSV
+                        : QuestionImportReader.Format.JSONL;
+                try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                    ImportReportDto report = questionImportService.importQuestions(reader, format);
+                    report.errors.forEach(error -> log.warn("⚠️ {}: {}", path, error));
+                } catch (Exception e) {
+                    failed = true;
+                    log.error("❌ Import di {} fallito: {}", path, e.getMessage());
+                }
+            }
+        }
+
+        int exitCode = failed ? 1 : 0;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+}
@@ -0,0 +1,71 @@
+package com.pub_game_be.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * 🔢 Allinea le sequenze di {@code question} e {@code question_option} al MAX(id) delle tabelle all'avvio.
+ * Su un database creato quando gli id erano IDENTITY, {@code ddl-auto: update} crea le sequenze da 1 e il primo
+ * INSERT andrebbe su un id già usato. Su MySQL la "sequenza" è una tabella con {@code next_val}, su H2 una
+ * sequenza vera; in entrambi i casi si sposta solo in avanti, quindi una volta allineata non cambia più.
+ * <p>
+ * Gira prima che il server web accetti richieste e prima dei runner (import da riga di comando compreso).
+ */
+@Component
+public class QuestionSequenceInitializer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(QuestionSequenceInitializer.class);
+
+    // allocationSize dei @SequenceGenerator di Question e QuestionOption
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "question_seq", "question",
+            "question_option_seq", "question_option");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Dialect dialect;
+
+    public QuestionSequenceInitializer(DataSource dataSource, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        SEQUENCES.forEach(this::seed);
+    }
+
+    private void seed(String sequence, String table) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        if (maxId == null) {
+            return;
+        }
+        // Con l'ottimizzatore pooled il valore letto è la fine del blocco (da valore - 49 a valore):
+        // con MAX(id) + 50 il blocco parte da MAX(id) + 1
+        long target = maxId + ALLOCATION_SIZE;
+
+        if (dialect.getSequenceSupport().supportsSequences()) {
+            Long next = jdbcTemplate.queryForObject(dialect.getSequenceSupport().getSequenceNextValString(sequence), Long.class);
+            if (next != null && next >= target) {
+                return;
+            }
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + target);
+        } else {
+            int updated = jdbcTemplate.update("UPDATE " + sequence + " SET next_val = ? WHERE next_val < ?", target, target);
+            if (updated == 0) {
+                return;
+            }
+        }
+        log.info("🔢 Sequenza {} portata a {} (MAX(id) di {} = {})", sequence, target, table, maxId);
+    }
+}
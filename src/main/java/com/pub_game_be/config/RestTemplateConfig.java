@@ -1,26 +1,58 @@
 package com.pub_game_be.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
 import java.util.Collections;
 
+/**
+ * 🌐 Client HTTP in uscita condiviso da Groq, TMDB, iTunes e Pexels: un solo HttpClient JDK
+ * (connessioni keep-alive riusate per host, HTTP/2 dove disponibile) con timeout e limite per host.
+ */
 @Configuration
 public class RestTemplateConfig {
 
     @Bean
-    public RestTemplate restTemplate() {
-        RestTemplate restTemplate = new RestTemplate();
+    public HttpClient outboundHttpClient(@Value("${http.client.connect-timeout-ms:3000}") long connectTimeoutMs) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @Bean
+    public HostLimitingInterceptor hostLimitingInterceptor(
+            @Value("${http.client.max-concurrent-per-host:16}") int maxConcurrentPerHost,
+            @Value("${http.client.acquire-timeout-ms:2000}") long acquireTimeoutMs) {
+        return new HostLimitingInterceptor(maxConcurrentPerHost, acquireTimeoutMs);
+    }
+
+    @Bean
+    public RestTemplate restTemplate(HttpClient outboundHttpClient,
+            HostLimitingInterceptor hostLimitingInterceptor,
+            @Value("${http.client.read-timeout-ms:30000}") long readTimeoutMs) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(outboundHttpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
 
         restTemplate.getInterceptors().add((request, body, execution) -> {
             request.getHeaders().set("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36");
-            request.getHeaders().setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+            if (request.getHeaders().getAccept().isEmpty()) {
+                request.getHeaders().setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+            }
             request.getHeaders().set("Accept-Language", "it-IT,it;q=0.9,en-US;q=0.8,en;q=0.7");
             return execution.execute(request, body);
         });
+        restTemplate.getInterceptors().add(hostLimitingInterceptor);
 
         return restTemplate;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,81 @@
+package com.pub_game_be.config;
+
+import com.pub_game_be.service.LogSampler;
+import com.pub_game_be.service.TokenBucket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🚦 Primo filtro sugli urli STOMP: ogni sessione ha un token bucket su {@code /app/scream} e i frame
+ * in eccesso vengono scartati sul thread che li legge dal socket, prima di finire nella coda del
+ * clientInboundChannel. Un telefono impazzito non riempie la coda condivisa da tutte le partite.
+ * Il limite vero per giocatore (con fusione dei campioni) resta nella {@code ScreamRace}.
+ */
+@Component
+public class ScreamInboundLimiter implements ChannelInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(ScreamInboundLimiter.class);
+
+    private static final String SCREAM_DESTINATION = "/app/scream";
+    private static final String BUCKET = "scream.inbound.bucket";
+
+    private final double perSessionPerSecond;
+    private final int burst;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LogSampler droppedLog = new LogSampler(1000);
+
+    public ScreamInboundLimiter(
+            @Value("${scream.inbound.per-session-per-second:60}") double perSessionPerSecond,
+            @Value("${scream.inbound.burst:20}") int burst) {
+        this.perSessionPerSecond = perSessionPerSecond;
+        this.burst = burst;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE
+                || !SCREAM_DESTINATION.equals(SimpMessageHeaderAccessor.getDestination(message.getHeaders()))) {
+            return message;
+        }
+
+        Map<String, Object> sessionAttributes = SimpMessageHeaderAccessor.getSessionAttributes(message.getHeaders());
+        if (sessionAttributes == null) {
+            return message;
+        }
+
+        TokenBucket bucket = (TokenBucket) sessionAttributes.computeIfAbsent(BUCKET,
+                k -> new TokenBucket(perSessionPerSecond, burst));
+        if (!bucket.tryAcquire()) {
+            dropped.increment();
+            if (droppedLog.sample()) {
+                log.atWarn().addKeyValue("session", SimpMessageHeaderAccessor.getSessionId(message.getHeaders()))
+                        .log("🚦 Sessione oltre il limite su /app/scream ({} frame scartati in totale)", droppedLog.count());
+            }
+            return null; // Scartato: non entra nella coda
+        }
+        accepted.increment();
+        return message;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("perSessionPerSecond", perSessionPerSecond);
+        out.put("burst", burst);
+        out.put("accepted", accepted.sum());
+        out.put("dropped", dropped.sum());
+        return out;
+    }
+}
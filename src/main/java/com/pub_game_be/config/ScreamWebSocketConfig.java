@@ -0,0 +1,28 @@
+package com.pub_game_be.config;
+
+import com.pub_game_be.controller.ScreamBinaryWebSocketHandler;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * 🎤 WebSocket grezzo (niente SockJS/STOMP) per gli urli in binario. Sta fuori da {@link WebSocketConfig}
+ * perché l'handler dipende dal broker STOMP che quella classe configura.
+ */
+@Configuration
+@EnableWebSocket
+public class ScreamWebSocketConfig implements WebSocketConfigurer {
+
+    private final ScreamBinaryWebSocketHandler screamBinaryWebSocketHandler;
+
+    public ScreamWebSocketConfig(ScreamBinaryWebSocketHandler screamBinaryWebSocketHandler) {
+        this.screamBinaryWebSocketHandler = screamBinaryWebSocketHandler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(screamBinaryWebSocketHandler, "/ws-scream")
+                .setAllowedOriginPatterns("*");
+    }
+}
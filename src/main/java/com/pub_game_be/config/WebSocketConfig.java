@@ -1,7 +1,10 @@
 package com.pub_game_be.config;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
@@ -10,6 +13,15 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final ScreamInboundLimiter screamInboundLimiter;
+    private final ThreadPoolTaskExecutor clientInboundExecutor;
+
+    public WebSocketConfig(ScreamInboundLimiter screamInboundLimiter,
+            @Qualifier("clientInboundExecutor") ThreadPoolTaskExecutor clientInboundExecutor) {
+        this.screamInboundLimiter = screamInboundLimiter;
+        this.clientInboundExecutor = clientInboundExecutor;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic");
@@ -22,4 +34,10 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
     }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.executor(clientInboundExecutor)
+                .interceptors(screamInboundLimiter);
+    }
 }
\ No newline at end of file
@@ -1,23 +1,45 @@
 package com.pub_game_be.controller;
 
+import com.pub_game_be.service.AnswerTallyService;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.stereotype.Controller;
+
 import java.util.Map;
+import java.util.Set;
 
 @Controller
 public class GameWebSocketController {
 
+    private static final Set<String> CLOSING_STATUSES = Set.of("CLOSED", "SOLUTION", "FINISHED");
+
+    private final AnswerTallyService answerTallyService;
+
+    public GameWebSocketController(AnswerTallyService answerTallyService) {
+        this.answerTallyService = answerTallyService;
+    }
+
+    /**
+     * 🗳️ Risposta di un giocatore: viene solo contata. Su /topic/game/{id}/responses escono
+     * gli ANSWER_TALLY aggregati e l'ANSWER_RESULT finale, non più ogni singola risposta.
+     */
     @MessageMapping("/game/{gameId}/answer")
-    @SendTo("/topic/game/{gameId}/responses")
-    public Map<String, Object> handleAnswer(@DestinationVariable("gameId") Long gameId, Map<String, Object> payload) {
-        return payload;
+    public void handleAnswer(@DestinationVariable("gameId") Long gameId, Map<String, Object> payload) {
+        Object playerName = payload.getOrDefault("playerName", payload.get("player"));
+        Object answer = payload.getOrDefault("answer", payload.get("option"));
+        answerTallyService.answer(gameId.intValue(),
+                playerName == null ? null : playerName.toString(),
+                answer == null ? null : answer.toString());
     }
 
     @MessageMapping("/game/{gameId}/status")
     @SendTo("/topic/game/{gameId}/status")
     public Map<String, Object> updateStatus(@DestinationVariable("gameId") Long gameId, Map<String, Object> status) {
+        Object value = status.get("status");
+        if (value != null && CLOSING_STATUSES.contains(value.toString().toUpperCase())) {
+            answerTallyService.close(gameId.intValue());
+        }
         return status;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,209 @@
+package com.pub_game_be.controller;
+
+import com.pub_game_be.service.BlurPyramidService;
+import com.pub_game_be.service.DiskMediaCache;
+import com.pub_game_be.service.DiskMediaCache.CachedMedia;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * 📡 Serve in LAN i media scaricati da {@link DiskMediaCache}: tutti i telefoni e la TV leggono
+ * lo stesso file locale invece di scaricarlo ognuno da internet.
+ */
+@RestController
+@RequestMapping("/media")
+public class MediaController {
+
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern BLUR_ID_PATTERN = Pattern.compile("[0-9a-f]{32}");
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final DiskMediaCache diskMediaCache;
+    private final BlurPyramidService blurPyramidService;
+    private final long fetchWaitMs;
+
+    public MediaController(DiskMediaCache diskMediaCache,
+            BlurPyramidService blurPyramidService,
+            @Value("${media.fetch-wait-ms:10000}") long fetchWaitMs) {
+        this.diskMediaCache = diskMediaCache;
+        this.blurPyramidService = blurPyramidService;
+        this.fetchWaitMs = fetchWaitMs;
+    }
+
+    @GetMapping("/images/{key}")
+    public void image(@PathVariable("key") String key,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        serve(key, request, response);
+    }
+
+    /**
+     * 🎧 Anteprima audio dei round MUSIC, con supporto Range così i player possono cercare e ripartire.
+     */
+    @GetMapping("/audio/{key}")
+    public void audio(@PathVariable("key") String key,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        serve(key, request, response);
+    }
+
+    /**
+     * 🌫️ Livello {@code level} della piramide di sfocatura (0 = più sfocato), già codificato in JPEG.
+     * Il {@code blurId} è opaco: non porta alla foto nitida di {@code /media/images/{key}}.
+     */
+    @GetMapping("/blur/{blurId}/{level}")
+    public void blurredImage(@PathVariable("blurId") String blurId,
+            @PathVariable("level") int level,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        if (!BLUR_ID_PATTERN.matcher(blurId).matches()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        Optional<byte[]> blurred = blurPyramidService.getLevel(blurId, level, fetchWaitMs);
+        if (blurred.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String etag = "\"" + blurId.substring(0, 16) + "-b" + level + "-" + blurred.get().length + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=86400, immutable");
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType("image/jpeg");
+        response.setContentLength(blurred.get().length);
+        response.getOutputStream().write(blurred.get());
+    }
+
+    private void serve(String key, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!KEY_PATTERN.matcher(key).matches()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        Optional<CachedMedia> cached = diskMediaCache.get(key, fetchWaitMs);
+        if (cached.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        CachedMedia media = cached.get();
+
+        // Il contenuto di una chiave non cambia mai (è l'hash dell'URL d'origine)
+        response.setHeader(HttpHeaders.ETAG, media.etag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=86400, immutable");
+        if (media.etag().equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range == null || (ifRange != null && !ifRange.equals(media.etag()))) {
+            response.setContentType(media.contentType());
+            sendFile(media, 0, media.size(), request, response);
+            return;
+        }
+
+        long[] bounds = parseRange(range, media.size());
+        if (bounds == null) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + media.size());
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType(media.contentType());
+        response.setHeader(HttpHeaders.CONTENT_RANGE,
+                "bytes " + bounds[0] + "-" + bounds[1] + "/" + media.size());
+        sendFile(media, bounds[0], bounds[1] - bounds[0] + 1, request, response);
+    }
+
+    /**
+     * Un solo intervallo ({@code bytes=a-b}, {@code bytes=a-}, {@code bytes=-n}); per più intervalli
+     * si serve il primo, che è quello che chiedono i player audio. Null se non soddisfacibile.
+     */
+    private long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || size == 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).split(",")[0].trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            }
+            return start <= end && start < size ? new long[] { start, end } : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Zero-copy con il sendfile di Tomcat quando il connettore lo supporta,
+     * altrimenti transferTo dal FileChannel allo stream della risposta.
+     */
+    private void sendFile(CachedMedia media, long start, long length,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentLengthLong(length);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, media.file().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(media.file(), StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long end = start + length;
+            while (position < end) {
+                long sent = channel.transferTo(position, end - position, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+            }
+            out.flush();
+        }
+    }
+}
@@ -1,29 +1,96 @@
 package com.pub_game_be.controller;
 
 import com.pub_game_be.domain.question.Question;
-import com.pub_game_be.repository.QuestionRepository;
+import com.pub_game_be.dto.ImportReportDto;
+import com.pub_game_be.dto.QuestionDto;
+import com.pub_game_be.service.QuestionImportReader;
+import com.pub_game_be.service.QuestionImportService;
+import com.pub_game_be.service.QuestionReadService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/questions")
 public class QuestionController {
 
-    private final QuestionRepository repo;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
-    public QuestionController(QuestionRepository repo) {
-        this.repo = repo;
+    private final QuestionReadService questionReadService;
+    private final QuestionImportService questionImportService;
+
+    public QuestionController(QuestionReadService questionReadService,
+            QuestionImportService questionImportService) {
+        this.questionReadService = questionReadService;
+        this.questionImportService = questionImportService;
     }
 
     @GetMapping
     public List<Question> all() {
-        return repo.findAll();
+        return questionReadService.all();
     }
 
     @GetMapping("/category/{id}")
     public List<Question> byCategory(@PathVariable("id") Long id) {
-        return repo.findByCategoryId(id);
+        return questionReadService.byCategory(id);
     }
 
+    /**
+     * 📄 Una pagina keyset: se è piena, {@code X-Next-After} è l'{@code after} della pagina successiva.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<List<QuestionDto>> page(
+            @RequestParam(value = "after", defaultValue = "0") long after,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        int pageSize = Math.max(1, Math.min(limit, 500));
+        List<QuestionDto> page = questionReadService.page(after, pageSize);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == pageSize) {
+            response.header("X-Next-After", String.valueOf(page.get(page.size() - 1).id));
+        }
+        return response.body(page);
+    }
+
+    /**
+     * 📤 Export completo in streaming, una domanda JSON per riga.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export() {
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header("Content-Disposition", "attachment; filename=\"questions.ndjson\"")
+                .body(questionReadService::exportNdjson);
+    }
+
+    /**
+     * 📦 Import massivo: il corpo della richiesta è il file, letto in streaming
+     * ({@code curl --data-binary @domande.csv -H "Content-Type: text/csv" .../questions/import}).
+     * Il formato viene dal parametro {@code format} (csv | jsonl) o, in mancanza, dal Content-Type.
+     */
+    @PostMapping("/import")
+    public ImportReportDto importQuestions(
+            @RequestParam(value = "format", required = false) String format,
+            @RequestHeader(value = "Content-Type", required = false) String contentType,
+            InputStream body) throws IOException {
+        String declared = format != null ? format : (contentType != null && contentType.contains("csv") ? "csv" : "jsonl");
+        return questionImportService.importQuestions(body, parseFormat(declared));
+    }
+
+    private static QuestionImportReader.Format parseFormat(String declared) {
+        try {
+            return QuestionImportReader.Format.valueOf(declared.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Formato non supportato: " + declared + " (valori ammessi: csv, jsonl)");
+        }
+    }
 }
@@ -0,0 +1,144 @@
+package com.pub_game_be.controller;
+
+import com.pub_game_be.dto.ScreamFrame;
+import com.pub_game_be.service.LogSampler;
+import com.pub_game_be.service.ScreamRace;
+import com.pub_game_be.service.ScreamRaceEngine;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🎤 Canale WebSocket grezzo per gli urli ad alta frequenza, accanto a STOMP su {@code /ws-pubgame}.
+ * Il telefono manda prima un JOIN testuale ({@code {"action":"JOIN","gameId":1,"playerName":"Rossi"}}),
+ * riceve lo slot della sua corsia e da lì in poi solo frame binari {@link ScreamFrame} da 18 byte,
+ * decodificati sul posto e passati allo stesso {@link ScreamRaceEngine} del percorso STOMP.
+ */
+@Component
+public class ScreamBinaryWebSocketHandler extends AbstractWebSocketHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(ScreamBinaryWebSocketHandler.class);
+
+    private static final String JOINED = "scream.joined";
+
+    private final ScreamRaceEngine screamRaceEngine;
+
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder rejectedFrames = new LongAdder();
+    private final LongAdder joins = new LongAdder();
+    private final LogSampler rejectedLog = new LogSampler(1000);
+
+    public ScreamBinaryWebSocketHandler(ScreamRaceEngine screamRaceEngine) {
+        this.screamRaceEngine = screamRaceEngine;
+    }
+
+    /**
+     * Corsie su cui la sessione può urlare: solo quelle ottenute con un JOIN, e solo nella gara
+     * in cui sono state assegnate (dopo un reset gli slot ripartono da zero).
+     */
+    private static final class Joined {
+        private volatile ScreamRace race;
+        private final BitSet slots = new BitSet(ScreamRace.MAX_LANES);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        session.getAttributes().put(JOINED, new Joined());
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+        JSONObject join;
+        try {
+            join = new JSONObject(message.getPayload());
+        } catch (JSONException e) {
+            session.close(CloseStatus.BAD_DATA);
+            return;
+        }
+        if (!"JOIN".equals(join.optString("action")) || join.optString("playerName").isBlank()) {
+            session.close(CloseStatus.BAD_DATA);
+            return;
+        }
+
+        int gameId = join.optInt("gameId", 1);
+        String playerName = join.getString("playerName");
+        ScreamRace race = screamRaceEngine.race(gameId);
+        ScreamRace.Lane lane = race.lane(playerName);
+
+        Joined joined = (Joined) session.getAttributes().get(JOINED);
+        synchronized (joined) {
+            if (joined.race != race) {
+                joined.slots.clear();
+                joined.race = race;
+            }
+            if (lane.getSlot() >= 0) {
+                joined.slots.set(lane.getSlot());
+            }
+        }
+        joins.increment();
+
+        JSONObject reply = new JSONObject();
+        reply.put("action", "SLOT_ASSIGNED");
+        reply.put("gameId", gameId);
+        reply.put("playerName", playerName);
+        reply.put("slot", lane.getSlot());
+        session.sendMessage(new TextMessage(reply.toString()));
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        ByteBuffer frame = message.getPayload();
+        if (!ScreamFrame.isValid(frame)) {
+            reject(session);
+            return;
+        }
+
+        Joined joined = (Joined) session.getAttributes().get(JOINED);
+        ScreamRace race = joined == null ? null : joined.race;
+        int slot = ScreamFrame.slot(frame);
+        if (race == null || race.getGameId() != ScreamFrame.gameId(frame) || slot < 0 || !joined.slots.get(slot)) {
+            reject(session);
+            return;
+        }
+
+        ScreamRace.Lane lane = race.laneBySlot(slot);
+        // Gara chiusa o resettata (RACE_RESET): il client deve rifare il JOIN sulla nuova gara
+        if (lane == null || race.isEnded() || screamRaceEngine.race(race.getGameId()) != race) {
+            reject(session);
+            return;
+        }
+
+        frames.increment();
+        screamRaceEngine.scream(race, lane, ScreamFrame.intensity(frame));
+    }
+
+    private void reject(WebSocketSession session) {
+        rejectedFrames.increment();
+        if (rejectedLog.sample()) {
+            log.atWarn().addKeyValue("session", session.getId())
+                    .log("⚠️ Frame binario scartato ({} in totale)", rejectedLog.count());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("joins", joins.sum());
+        out.put("frames", frames.sum());
+        out.put("rejectedFrames", rejectedFrames.sum());
+        return out;
+    }
+}
@@ -1,6 +1,10 @@
 package com.pub_game_be.controller;
 
 import com.pub_game_be.dto.ScreamDto;
+import com.pub_game_be.service.ScreamRace;
+import com.pub_game_be.service.ScreamRaceEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
@@ -8,106 +12,33 @@ import org.springframework.stereotype.Controller;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Controller
 public class ScreamRaceController {
 
+    private static final Logger log = LoggerFactory.getLogger(ScreamRaceController.class);
+
     private final SimpMessagingTemplate messagingTemplate;
-    
-    // Track progress: playerName -> progress (0-100)
-    private final Map<String, Double> teamProgress = new ConcurrentHashMap<>();
-    
-    // Track position: playerName -> position (1st, 2nd, 3rd...)
-    private final Map<String, Integer> finishOrder = new ConcurrentHashMap<>();
-    
-    private int finishCounter = 0;
-    private boolean raceEnded = false;
+    private final ScreamRaceEngine screamRaceEngine;
 
-    public ScreamRaceController(SimpMessagingTemplate messagingTemplate) {
+    public ScreamRaceController(SimpMessagingTemplate messagingTemplate, ScreamRaceEngine screamRaceEngine) {
         this.messagingTemplate = messagingTemplate;
+        this.screamRaceEngine = screamRaceEngine;
     }
 
     /**
-     * 🎤 Riceve urlo dal giocatore
+     * 🎤 Riceve urlo dal giocatore (già filtrato per sessione da ScreamInboundLimiter)
      */
     @MessageMapping("/scream")
     public void handleScream(ScreamDto scream) {
-        if (raceEnded) {
+        ScreamRace race = screamRaceEngine.race(scream.gameId);
+        if (race.isEnded()) {
             return; // Gara finita, ignora urli
         }
 
-        String playerName = scream.playerName;
-        double intensity = Math.max(0, Math.min(100, scream.intensity)); // Clamp 0-100
-
-        // 🏃 Calcola avanzamento (intensity / 20 = max 5% per urlo)
-        double currentProgress = teamProgress.getOrDefault(playerName, 0.0);
-        double increment = intensity / 20.0; // Max 5% per urlo forte
-        double newProgress = Math.min(100.0, currentProgress + increment);
-        
-        teamProgress.put(playerName, newProgress);
-
-        System.out.println("🎤 " + playerName + " urla! Intensità: " + 
-                          String.format("%.1f", intensity) + 
-                          " → Progresso: " + String.format("%.1f%%", newProgress));
-
-        // 🏁 Check se ha raggiunto il traguardo
-        if (newProgress >= 100.0 && !finishOrder.containsKey(playerName)) {
-            finishCounter++;
-            finishOrder.put(playerName, finishCounter);
-            
-            System.out.println("🏆 " + playerName + " ha finito in posizione " + finishCounter + "!");
-
-            // Broadcast vincitore
-            Map<String, Object> winnerMsg = new HashMap<>();
-            winnerMsg.put("action", "PLAYER_FINISHED");
-            winnerMsg.put("playerName", playerName);
-            winnerMsg.put("position", finishCounter);
-            winnerMsg.put("points", calculatePoints(finishCounter));
-            
-            messagingTemplate.convertAndSend("/topic/game/" + scream.gameId, Optional.of(winnerMsg));
-
-            // Se 3 squadre hanno finito, termina la gara
-            if (finishCounter >= 3) {
-                endRace(scream.gameId);
-            }
-        }
-
-        // 📡 Broadcast aggiornamento posizione a tutti
-        Map<String, Object> updateMsg = new HashMap<>();
-        updateMsg.put("action", "SCREAM_UPDATE");
-        updateMsg.put("playerName", playerName);
-        updateMsg.put("progress", newProgress);
-        updateMsg.put("intensity", intensity);
-        
-        messagingTemplate.convertAndSend("/topic/game/" + scream.gameId, Optional.of(updateMsg));
-    }
-
-    /**
-     * 🏁 Termina la gara
-     */
-    private void endRace(int gameId) {
-        raceEnded = true;
-        
-        Map<String, Object> endMsg = new HashMap<>();
-        endMsg.put("action", "RACE_ENDED");
-        endMsg.put("finalStandings", finishOrder);
-        
-        messagingTemplate.convertAndSend("/topic/game/" + gameId, Optional.of(endMsg));
-        
-        System.out.println("🏁 Gara terminata! Classifica finale: " + finishOrder);
-    }
+        screamRaceEngine.scream(race, race.lane(scream.playerName), scream.intensity);
 
-    /**
-     * 🎯 Calcola punti in base alla posizione
-     */
-    private int calculatePoints(int position) {
-        return switch (position) {
-            case 1 -> 1000;
-            case 2 -> 500;
-            case 3 -> 250;
-            default -> 0;
-        };
+        // 📡 Il progresso arriva a tutti col prossimo SCREAM_SNAPSHOT del broadcaster
     }
 
     /**
@@ -115,18 +46,15 @@ public class ScreamRaceController {
      */
     @MessageMapping("/scream/reset")
     public void resetRace(Map<String, Object> payload) {
-        teamProgress.clear();
-        finishOrder.clear();
-        finishCounter = 0;
-        raceEnded = false;
-        
         int gameId = (int) payload.getOrDefault("gameId", 1);
+
+        screamRaceEngine.reset(gameId);
         
         Map<String, Object> resetMsg = new HashMap<>();
         resetMsg.put("action", "RACE_RESET");
         
         messagingTemplate.convertAndSend("/topic/game/" + gameId, Optional.of(resetMsg));
         
-        System.out.println("🔄 Gara resettata!");
+        log.info("🔄 Gara {} resettata!", gameId);
     }
 }
@@ -0,0 +1,180 @@
+package com.pub_game_be.controller;
+
+import com.pub_game_be.config.HostLimitingInterceptor;
+import com.pub_game_be.config.ScreamInboundLimiter;
+import com.pub_game_be.service.AiRoundService;
+import com.pub_game_be.service.AnswerTallyService;
+import com.pub_game_be.service.AppleMusicCuratorService;
+import com.pub_game_be.service.ArenaQuestionService;
+import com.pub_game_be.service.BlurPyramidService;
+import com.pub_game_be.service.DiskMediaCache;
+import com.pub_game_be.service.GroqClient;
+import com.pub_game_be.service.ImageResolver;
+import com.pub_game_be.service.LeaderboardService;
+import com.pub_game_be.service.QuestionBank;
+import com.pub_game_be.service.QuestionGeneratorService;
+import com.pub_game_be.service.QuestionImportService;
+import com.pub_game_be.service.QuestionPoolService;
+import com.pub_game_be.service.QuestionReadService;
+import com.pub_game_be.service.RequestCoalescer;
+import com.pub_game_be.service.ScreamRaceEngine;
+import com.pub_game_be.service.SecondLevelCacheStats;
+import com.pub_game_be.service.TMDBImageService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+
+    private final QuestionPoolService questionPoolService;
+    private final ArenaQuestionService arenaQuestionService;
+    private final RequestCoalescer requestCoalescer;
+    private final GroqClient groqClient;
+    private final QuestionGeneratorService questionGeneratorService;
+    private final AiRoundService aiRoundService;
+    private final HostLimitingInterceptor hostLimitingInterceptor;
+    private final TMDBImageService tmdbImageService;
+    private final ImageResolver imageResolver;
+    private final DiskMediaCache diskMediaCache;
+    private final BlurPyramidService blurPyramidService;
+    private final AppleMusicCuratorService appleMusicCuratorService;
+    private final ScreamRaceEngine screamRaceEngine;
+    private final ScreamBinaryWebSocketHandler screamBinaryWebSocketHandler;
+    private final ScreamInboundLimiter screamInboundLimiter;
+    private final AnswerTallyService answerTallyService;
+    private final LeaderboardService leaderboardService;
+    private final QuestionBank questionBank;
+    private final SecondLevelCacheStats secondLevelCacheStats;
+    private final QuestionReadService questionReadService;
+    private final QuestionImportService questionImportService;
+
+    public StatsController(QuestionPoolService questionPoolService,
+            ArenaQuestionService arenaQuestionService,
+            RequestCoalescer requestCoalescer,
+            GroqClient groqClient,
+            QuestionGeneratorService questionGeneratorService,
+            AiRoundService aiRoundService,
+            HostLimitingInterceptor hostLimitingInterceptor,
+            TMDBImageService tmdbImageService,
+            ImageResolver imageResolver,
+            DiskMediaCache diskMediaCache,
+            BlurPyramidService blurPyramidService,
+            AppleMusicCuratorService appleMusicCuratorService,
+            ScreamRaceEngine screamRaceEngine,
+            ScreamBinaryWebSocketHandler screamBinaryWebSocketHandler,
+            ScreamInboundLimiter screamInboundLimiter,
+            AnswerTallyService answerTallyService,
+            LeaderboardService leaderboardService,
+            QuestionBank questionBank,
+            SecondLevelCacheStats secondLevelCacheStats,
+            QuestionReadService questionReadService,
+            QuestionImportService questionImportService) {
+        this.questionPoolService = questionPoolService;
+        this.arenaQuestionService = arenaQuestionService;
+        this.requestCoalescer = requestCoalescer;
+        this.groqClient = groqClient;
+        this.questionGeneratorService = questionGeneratorService;
+        this.aiRoundService = aiRoundService;
+        this.hostLimitingInterceptor = hostLimitingInterceptor;
+        this.tmdbImageService = tmdbImageService;
+        this.imageResolver = imageResolver;
+        this.diskMediaCache = diskMediaCache;
+        this.blurPyramidService = blurPyramidService;
+        this.appleMusicCuratorService = appleMusicCuratorService;
+        this.screamRaceEngine = screamRaceEngine;
+        this.screamBinaryWebSocketHandler = screamBinaryWebSocketHandler;
+        this.screamInboundLimiter = screamInboundLimiter;
+        this.answerTallyService = answerTallyService;
+        this.leaderboardService = leaderboardService;
+        this.questionBank = questionBank;
+        this.secondLevelCacheStats = secondLevelCacheStats;
+        this.questionReadService = questionReadService;
+        this.questionImportService = questionImportService;
+    }
+
+    @GetMapping("/question-pool")
+    public Map<String, Object> questionPool() {
+        return questionPoolService.stats();
+    }
+
+    @GetMapping("/arena")
+    public Map<String, Object> arena() {
+        return arenaQuestionService.stats();
+    }
+
+    @GetMapping("/cache")
+    public Map<String, Object> cache() {
+        return secondLevelCacheStats.stats();
+    }
+
+    @GetMapping("/coalescing")
+    public Map<String, Object> coalescing() {
+        return requestCoalescer.stats();
+    }
+
+    @GetMapping("/llm")
+    public Map<String, Object> llm() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("groq", groqClient.stats());
+        out.put("budget", questionGeneratorService.stats());
+        out.put("streaming", aiRoundService.stats());
+        return out;
+    }
+
+    @GetMapping("/http")
+    public Map<String, Object> http() {
+        return hostLimitingInterceptor.stats();
+    }
+
+    @GetMapping("/images")
+    public Map<String, Object> images() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("resolver", imageResolver.stats());
+        out.put("tmdbCache", tmdbImageService.stats());
+        return out;
+    }
+
+    @GetMapping("/media")
+    public Map<String, Object> media() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("disk", diskMediaCache.stats());
+        out.put("blur", blurPyramidService.stats());
+        return out;
+    }
+
+    @GetMapping("/music")
+    public Map<String, Object> music() {
+        return appleMusicCuratorService.stats();
+    }
+
+    @GetMapping("/scream")
+    public Map<String, Object> scream() {
+        Map<String, Object> out = new LinkedHashMap<>(screamRaceEngine.stats());
+        out.put("binary", screamBinaryWebSocketHandler.stats());
+        out.put("inbound", screamInboundLimiter.stats());
+        return out;
+    }
+
+    @GetMapping("/answers")
+    public Map<String, Object> answers() {
+        return answerTallyService.stats();
+    }
+
+    @GetMapping("/leaderboard")
+    public Map<String, Object> leaderboard() {
+        return leaderboardService.stats();
+    }
+
+    @GetMapping("/question-bank")
+    public Map<String, Object> questionBank() {
+        Map<String, Object> out = new LinkedHashMap<>(questionBank.stats());
+        out.put("reads", questionReadService.stats());
+        out.put("imports", questionImportService.stats());
+        return out;
+    }
+}
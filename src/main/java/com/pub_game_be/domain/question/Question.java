@@ -2,22 +2,37 @@ package com.pub_game_be.domain.question;
 
 import com.pub_game_be.domain.category.Category;
 import com.pub_game_be.domain.enums.QuestionType;
+import com.pub_game_be.service.QuestionBankListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.util.List;
 
 @Entity
-@Table(name = "question")
+@Table(name = "question", indexes = {
+        @Index(name = "idx_question_category_difficulty", columnList = "category_id, difficulty, id"),
+        @Index(name = "idx_question_category_type", columnList = "category_id, type, id")
+})
+@EntityListeners(QuestionBankListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "question")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Question {
 
+    // SEQUENCE a blocchi di 50 invece di IDENTITY: Hibernate conosce gli id prima dell'INSERT
+    // e può mandare gli insert dell'import in batch JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "question_seq")
+    @SequenceGenerator(name = "question_seq", sequenceName = "question_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -26,7 +41,13 @@ public class Question {
     @Enumerated(EnumType.STRING)
     private QuestionType type;
 
-    @OneToMany(mappedBy = "question", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    // LAZY: le liste passano dalle proiezioni di QuestionReadService; chi naviga l'entity carica
+    // le opzioni di 50 domande per query invece di una query per domanda
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "question.options")
+    @OneToMany(mappedBy = "question", cascade = CascadeType.ALL)
+    @BatchSize(size = 50)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<QuestionOption> options;
 
     private String text;
@@ -2,22 +2,30 @@ package com.pub_game_be.domain.question;
 
 import com.pub_game_be.domain.category.Category;
 import com.pub_game_be.domain.enums.QuestionType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.util.List;
 
 @Entity
 @Table(name = "question_option")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "question_option")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class QuestionOption {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "question_option_seq")
+    @SequenceGenerator(name = "question_option_seq", sequenceName = "question_option_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "opt_value")
@@ -25,6 +33,9 @@ public class QuestionOption {
 
     private boolean correct;
 
-    @ManyToOne
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     private Question question;
 }
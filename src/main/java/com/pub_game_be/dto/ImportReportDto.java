@@ -0,0 +1,18 @@
+package com.pub_game_be.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ImportReportDto {
+
+    public String format;
+    public long rowsRead;
+    public long imported;
+    public long duplicates;
+    public long invalid;
+    public long batches;
+    public long elapsedMs;
+    public double rowsPerSecond;
+    public List<String> errors = new ArrayList<>(); // solo le prime, con numero di riga
+
+}
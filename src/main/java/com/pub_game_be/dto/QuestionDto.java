@@ -0,0 +1,38 @@
+package com.pub_game_be.dto;
+
+import com.pub_game_be.domain.enums.QuestionType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 📄 Domanda come la vedono le liste e l'export: letta con una proiezione JPQL (niente entity,
+ * niente grafo di opzioni caricato a cascata), le opzioni arrivano dopo con una sola query per blocco.
+ */
+public class QuestionDto {
+
+    public Long id;
+    public Long categoryId;
+    public String categoryName;
+    public String type;
+    public String difficulty;
+    public String text;
+    public String correctAnswer;
+    public String payload;
+    public List<QuestionOptionDto> options = new ArrayList<>();
+
+    public QuestionDto() {
+    }
+
+    public QuestionDto(Long id, Long categoryId, String categoryName, QuestionType type, String difficulty,
+            String text, String correctAnswer, String payload) {
+        this.id = id;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.type = type == null ? null : type.name();
+        this.difficulty = difficulty;
+        this.text = text;
+        this.correctAnswer = correctAnswer;
+        this.payload = payload;
+    }
+}
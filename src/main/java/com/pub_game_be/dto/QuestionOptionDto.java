@@ -0,0 +1,20 @@
+package com.pub_game_be.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+public class QuestionOptionDto {
+
+    @JsonIgnore
+    public Long questionId; // solo per riattaccarla alla domanda
+    public String value;
+    public boolean correct;
+
+    public QuestionOptionDto() {
+    }
+
+    public QuestionOptionDto(Long questionId, String value, boolean correct) {
+        this.questionId = questionId;
+        this.value = value;
+        this.correct = correct;
+    }
+}
@@ -0,0 +1,23 @@
+package com.pub_game_be.dto;
+
+public class RoundTicketDto {
+
+    public String ticketId;
+    public Long gameId;
+    public String type;
+    public volatile String status; // PENDING | COMPLETED | FAILED
+    public volatile Long roundId;
+    public volatile String error;
+    public long createdAt;
+
+    public RoundTicketDto() {
+    }
+
+    public RoundTicketDto(String ticketId, Long gameId, String type) {
+        this.ticketId = ticketId;
+        this.gameId = gameId;
+        this.type = type;
+        this.status = "PENDING";
+        this.createdAt = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,56 @@
+package com.pub_game_be.dto;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 📦 Layout fisso (big-endian, 18 byte) del frame binario di {@code /ws-scream}:
+ * <pre>
+ *  0  int   gameId
+ *  4  short slot       (assegnato dalla risposta al JOIN)
+ *  6  float intensity  (0-100)
+ * 10  long  timestamp  (epoch ms del client)
+ * </pre>
+ * Le letture sono assolute sul buffer ricevuto: nessun oggetto intermedio per frame.
+ */
+public final class ScreamFrame {
+
+    public static final int SIZE = 18;
+
+    private static final int GAME_ID = 0;
+    private static final int SLOT = 4;
+    private static final int INTENSITY = 6;
+    private static final int TIMESTAMP = 10;
+
+    private ScreamFrame() {
+    }
+
+    /**
+     * Lunghezza giusta e intensità finita: NaN e infiniti passerebbero il clamp e finirebbero nello snapshot.
+     */
+    public static boolean isValid(ByteBuffer frame) {
+        return frame.remaining() == SIZE && Float.isFinite(intensity(frame));
+    }
+
+    public static int gameId(ByteBuffer frame) {
+        return frame.getInt(frame.position() + GAME_ID);
+    }
+
+    public static int slot(ByteBuffer frame) {
+        return frame.getShort(frame.position() + SLOT);
+    }
+
+    public static float intensity(ByteBuffer frame) {
+        return frame.getFloat(frame.position() + INTENSITY);
+    }
+
+    public static long timestamp(ByteBuffer frame) {
+        return frame.getLong(frame.position() + TIMESTAMP);
+    }
+
+    public static void write(ByteBuffer target, int gameId, int slot, float intensity, long timestamp) {
+        target.putInt(gameId)
+                .putShort((short) slot)
+                .putFloat(intensity)
+                .putLong(timestamp);
+    }
+}
@@ -1,13 +1,21 @@
 package com.pub_game_be.repository;
 
 import com.pub_game_be.domain.category.Category;
-import com.pub_game_be.domain.game.Game;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
-    @Query(value = "SELECT * FROM category WHERE active = true ORDER BY RAND() LIMIT 1", nativeQuery = true)
-    java.util.Optional<Category> findRandom();
+    /**
+     * Lista per {@code GET /categories}: risultato nella query cache, le righe nella regione "category".
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    java.util.List<Category> findAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    java.util.Optional<Category> findFirstByNameIgnoreCase(String name);
 }
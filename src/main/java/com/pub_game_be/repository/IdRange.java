@@ -0,0 +1,18 @@
+package com.pub_game_be.repository;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 🎲 Estremi degli id che soddisfano un filtro, letti dall'indice (MIN/MAX costano un seek).
+ * Un id a caso nell'intervallo e un "primo id &gt;= r" bastano per pescare una riga senza ORDER BY RAND().
+ */
+public record IdRange(Long min, Long max) {
+
+    public boolean isEmpty() {
+        return min == null || max == null;
+    }
+
+    public long randomId() {
+        return min == max.longValue() ? min : ThreadLocalRandom.current().nextLong(min, max + 1);
+    }
+}
@@ -0,0 +1,9 @@
+package com.pub_game_be.repository;
+
+import com.pub_game_be.domain.enums.QuestionType;
+
+/**
+ * 🏦 Quello che la {@code QuestionBank} tiene di una domanda: id e chiave del filtro, niente testo né opzioni.
+ */
+public record QuestionBankRow(Long id, Long categoryId, String categoryName, String difficulty, QuestionType type) {
+}
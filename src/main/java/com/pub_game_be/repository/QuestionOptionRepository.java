@@ -1,13 +1,20 @@
 package com.pub_game_be.repository;
 
-import com.pub_game_be.domain.question.Question;
 import com.pub_game_be.domain.question.QuestionOption;
+import com.pub_game_be.dto.QuestionOptionDto;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 public interface QuestionOptionRepository extends JpaRepository<QuestionOption, Long> {
+
+    /**
+     * Opzioni di un blocco di domande in una sola query (al posto di una query per domanda).
+     */
+    @Query("SELECT new com.pub_game_be.dto.QuestionOptionDto(o.question.id, o.value, o.correct) "
+            + "FROM QuestionOption o WHERE o.question.id IN :ids ORDER BY o.id")
+    List<QuestionOptionDto> findDtosByQuestionIds(@Param("ids") Collection<Long> ids);
 }
@@ -1,20 +1,75 @@
 package com.pub_game_be.repository;
 
+import com.pub_game_be.domain.enums.QuestionType;
 import com.pub_game_be.domain.question.Question;
+import com.pub_game_be.dto.QuestionDto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.Repository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Le pescate casuali servono solo finché la {@code QuestionBank} non è caricata (o se è vuota): da lì in poi
+ * categorie e domande escono dalla memoria. Non usano ORDER BY RAND() (scansione e ordinamento di tutte
+ * le righe del filtro): MIN/MAX dell'id sull'indice del filtro, un id a caso nell'intervallo e il primo id &gt;= di quello.
+ * Su MySQL sono due seek sull'indice {@code (category_id, difficulty|type, id)} per pescata, qualunque sia
+ * la dimensione della tabella; H2 scorre comunque l'intervallo dell'indice ma evita l'ordinamento.
+ * Le domande dopo un buco negli id escono un po' più spesso, che per un quiz va benissimo.
+ */
 public interface QuestionRepository extends JpaRepository<Question, Long> {
+    /**
+     * {@code GET /questions} e {@code /questions/category/{id}}: la query cache tiene solo gli id, domande e opzioni
+     * arrivano dalle regioni "question", "question.options" e "question_option" (vedi ehcache.xml).
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Question> findAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Question> findByCategoryId(Long categoryId);
 
-    @Query(value = "SELECT * FROM question WHERE category_id = :categoryId ORDER BY RAND() LIMIT 1", nativeQuery = true)
-    Optional<Question> findRandomByCategory(@Param("categoryId") Long categoryId);
+    /**
+     * 📄 Pagina keyset per liste ed export: {@code id > after} sull'indice primario, nessun OFFSET da scorrere.
+     */
+    @Query("SELECT new com.pub_game_be.dto.QuestionDto(q.id, c.id, c.name, q.type, q.difficulty, q.text, q.correctAnswer, q.payload) "
+            + "FROM Question q LEFT JOIN q.category c WHERE q.id > :after ORDER BY q.id")
+    List<QuestionDto> findDtosAfter(@Param("after") Long after, Limit limit);
+
+    /**
+     * Caricamento della {@code QuestionBank} all'avvio, a pagine keyset: solo id e chiave di ogni domanda.
+     */
+    @Query("SELECT new com.pub_game_be.repository.QuestionBankRow(q.id, c.id, c.name, q.difficulty, q.type) "
+            + "FROM Question q LEFT JOIN q.category c WHERE q.id > :after ORDER BY q.id")
+    List<QuestionBankRow> findBankRowsAfter(@Param("after") Long after, Limit limit);
+
+    @Query("SELECT new com.pub_game_be.repository.IdRange(MIN(q.id), MAX(q.id)) FROM Question q "
+            + "WHERE q.category.id = :catId AND q.difficulty = :diff")
+    IdRange findIdRangeByCategoryAndDifficulty(@Param("catId") Long catId, @Param("diff") String diff);
+
+    @Query("SELECT new com.pub_game_be.repository.IdRange(MIN(q.id), MAX(q.id)) FROM Question q "
+            + "WHERE q.category.id = :catId AND q.type = :type")
+    IdRange findIdRangeByCategoryAndType(@Param("catId") Long catId, @Param("type") QuestionType type);
+
+    Optional<Question> findFirstByCategoryIdAndDifficultyAndIdGreaterThanEqualOrderByIdAsc(Long catId, String diff, Long id);
+
+    Optional<Question> findFirstByCategoryIdAndTypeAndIdGreaterThanEqualOrderByIdAsc(Long catId, QuestionType type, Long id);
+
+    default Optional<Question> findRandomByCategoryAndDifficulty(Long catId, String diff) {
+        IdRange range = findIdRangeByCategoryAndDifficulty(catId, diff);
+        return range.isEmpty() ? Optional.empty()
+                : findFirstByCategoryIdAndDifficultyAndIdGreaterThanEqualOrderByIdAsc(catId, diff, range.randomId());
+    }
 
-    @Query(value = "SELECT * FROM question WHERE category_id = :catId AND difficulty = :diff ORDER BY RAND() LIMIT 1", nativeQuery = true)
-    Optional<Question> findRandomByCategoryAndDifficulty(@Param("catId") Long catId, @Param("diff") String diff);
+    default Optional<Question> findRandomByCategoryAndType(Long catId, String type) {
+        QuestionType questionType = QuestionType.valueOf(type);
+        IdRange range = findIdRangeByCategoryAndType(catId, questionType);
+        return range.isEmpty() ? Optional.empty()
+                : findFirstByCategoryIdAndTypeAndIdGreaterThanEqualOrderByIdAsc(catId, questionType, range.randomId());
+    }
 }
@@ -0,0 +1,426 @@
+package com.pub_game_be.service;
+
+import com.pub_game_be.domain.enums.GameType;
+import com.pub_game_be.domain.enums.RoundStatus;
+import com.pub_game_be.domain.game.Game;
+import com.pub_game_be.domain.game_round.GameRound;
+import com.pub_game_be.dto.RoundTicketDto;
+import com.pub_game_be.repository.GameRepository;
+import com.pub_game_be.repository.GameRoundRepository;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🎲 Creazione dei round AI: generazione del payload, salvataggio e broadcast su /topic/game/{id}.
+ * La variante asincrona restituisce subito un ticket e completa la generazione su un executor dedicato.
+ */
+@Service
+public class AiRoundService {
+
+    private static final Logger log = LoggerFactory.getLogger(AiRoundService.class);
+
+    private static final int MAX_TICKETS = 256;
+
+    private final GameRepository gameRepo;
+    private final GameRoundRepository gameRoundRepository;
+    private final QuestionPoolService questionPoolService;
+    private final QuestionGeneratorService questionGeneratorService;
+    private final ArenaQuestionService arenaQuestionService;
+    private final AnswerTallyService answerTallyService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final RequestCoalescer requestCoalescer;
+    private final Executor roundGenerationExecutor;
+
+    private final Map<String, RoundTicketDto> tickets = new ConcurrentHashMap<>();
+    private final Queue<String> ticketOrder = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder previews = new LongAdder();
+    private final LongAdder retractions = new LongAdder();
+    private final LongAdder previewedRounds = new LongAdder();
+    private final LongAdder totalPreviewMs = new LongAdder();
+    private final LongAdder totalRoundMs = new LongAdder();
+
+    public AiRoundService(GameRepository gameRepo,
+            GameRoundRepository gameRoundRepository,
+            QuestionPoolService questionPoolService,
+            QuestionGeneratorService questionGeneratorService,
+            ArenaQuestionService arenaQuestionService,
+            AnswerTallyService answerTallyService,
+            SimpMessagingTemplate messagingTemplate,
+            RequestCoalescer requestCoalescer,
+            @Qualifier("roundGenerationExecutor") Executor roundGenerationExecutor) {
+        this.gameRepo = gameRepo;
+        this.gameRoundRepository = gameRoundRepository;
+        this.questionPoolService = questionPoolService;
+        this.questionGeneratorService = questionGeneratorService;
+        this.arenaQuestionService = arenaQuestionService;
+        this.answerTallyService = answerTallyService;
+        this.messagingTemplate = messagingTemplate;
+        this.requestCoalescer = requestCoalescer;
+        this.roundGenerationExecutor = roundGenerationExecutor;
+    }
+
+    /**
+     * 🔗 Richieste identiche in volo (doppio tap dell'host, più TV della stessa partita) ricevono lo stesso round.
+     */
+    public GameRound createAiRound(Long gameId, String category, String type, String difficulty) {
+        String key = RequestCoalescer.key(gameId, category, type, difficulty);
+        return requestCoalescer.execute(key, () -> generateAndPublish(gameId, category, type, difficulty));
+    }
+
+    private GameRound generateAndPublish(Long gameId, String category, String type, String difficulty) {
+        RoundPreview preview = new RoundPreview(gameId, type);
+        String aiPayload;
+        try {
+            if ("ARENA".equalsIgnoreCase(type)) {
+                aiPayload = arenaQuestionService.startSequence(gameId);
+            } else if ("MUSIC".equalsIgnoreCase(type)) {
+                aiPayload = questionGeneratorService.generateMusicQuestion(gameId);
+            } else {
+                aiPayload = questionPoolService.nextQuestionJson(category, type, difficulty, preview::publish);
+            }
+        } catch (RuntimeException e) {
+            preview.close(null);
+            throw e;
+        }
+
+        Game game = gameRepo.findById(gameId)
+                .orElseThrow(() -> new RuntimeException("Gioco non trovato"));
+
+        GameRound round = new GameRound();
+        round.setGame(game);
+
+        round.setType(GameType.valueOf(type.toUpperCase()));
+
+        round.setStatus(RoundStatus.VOTING);
+
+        String normalizedPayload = aiPayload;
+        if (type != null && ("WHEEL_OF_FORTUNE".equalsIgnoreCase(type)
+                || "WHEEL_FORTUNE".equalsIgnoreCase(type)
+                || "PROVERB".equalsIgnoreCase(type))) {
+            normalizedPayload = normalizeWheelPayload(aiPayload);
+        }
+
+        round.setPayload(normalizedPayload);
+
+        int nextIndex = (int) gameRoundRepository.countByGameId(gameId);
+        round.setRoundIndex(nextIndex);
+
+        GameRound savedRound = gameRoundRepository.save(round);
+        answerTallyService.open(savedRound);
+
+        preview.close(questionText(normalizedPayload));
+        messagingTemplate.convertAndSend(
+                "/topic/game/" + gameId,
+                savedRound);
+
+        return savedRound;
+    }
+
+    /**
+     * ⏳ Accoda la generazione e restituisce subito il ticket; il round finito arriva su /topic/game/{id}.
+     * ROUND_GENERATING esce prima di accodare: con una domanda già nel pool il round può essere pubblicato
+     * subito, e lo spinner arrivato dopo resterebbe sulla TV.
+     */
+    public RoundTicketDto submitAiRound(Long gameId, String category, String type, String difficulty) {
+        if (!gameRepo.existsById(gameId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Gioco non trovato");
+        }
+        try {
+            GameType.valueOf(String.valueOf(type).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tipo di round non supportato: " + type);
+        }
+
+        RoundTicketDto ticket = new RoundTicketDto(UUID.randomUUID().toString(), gameId, type);
+
+        registerTicket(ticket);
+
+        Map<String, Object> pendingMsg = new HashMap<>();
+        pendingMsg.put("action", "ROUND_GENERATING");
+        pendingMsg.put("ticketId", ticket.ticketId);
+        pendingMsg.put("type", type);
+        messagingTemplate.convertAndSend("/topic/game/" + gameId, Optional.of(pendingMsg));
+
+        try {
+            roundGenerationExecutor.execute(() -> completeTicket(ticket, category, type, difficulty));
+        } catch (RejectedExecutionException e) {
+            tickets.remove(ticket.ticketId);
+            ticketOrder.remove(ticket.ticketId);
+            publishFailure(ticket, "Troppe generazioni in corso");
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Troppe generazioni in corso");
+        }
+
+        return ticket;
+    }
+
+    public Optional<RoundTicketDto> getTicket(String ticketId) {
+        return Optional.ofNullable(tickets.get(ticketId));
+    }
+
+    /**
+     * 🌊 Anteprime: quante ne sono uscite, quante sono state ritirate e, per i round con anteprima,
+     * il tempo medio dall'inizio della generazione alla prima domanda sullo schermo e al round completo.
+     */
+    public Map<String, Object> stats() {
+        long rounds = previewedRounds.sum();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("previews", previews.sum());
+        out.put("retractions", retractions.sum());
+        out.put("previewedRounds", rounds);
+        out.put("avgTimeToPreviewMs", rounds == 0 ? 0 : totalPreviewMs.sum() / rounds);
+        out.put("avgTimeToRoundMs", rounds == 0 ? 0 : totalRoundMs.sum() / rounds);
+        return out;
+    }
+
+    private static String questionText(String payload) {
+        try {
+            return new JSONObject(payload).optString("question", null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 🌊 Anteprima del testo della domanda dallo stream Groq, mentre le opzioni stanno ancora arrivando.
+     * Ogni generazione ha il suo {@code previewId}; se il round pubblicato ha un'altra domanda (JSON scartato,
+     * fallback, nuovo tentativo IMAGE_BLUR) o l'anteprima è uscita dopo il round, segue un
+     * QUESTION_PREVIEW_RETRACTED con lo stesso id. Lo stato passa per CAS, così anteprima e round non
+     * possono incrociarsi senza che uno dei due se ne accorga.
+     */
+    private final class RoundPreview {
+        private static final int OPEN = 0;
+        private static final int SENDING = 1;
+        private static final int SENT = 2;
+        private static final int CLOSED = 3;
+
+        private final String previewId = UUID.randomUUID().toString();
+        private final Long gameId;
+        private final String type;
+        private final long startNanos = System.nanoTime();
+        private final AtomicInteger state = new AtomicInteger(OPEN);
+        private volatile String question;
+        private volatile long previewNanos;
+
+        private RoundPreview(Long gameId, String type) {
+            this.gameId = gameId;
+            this.type = type;
+        }
+
+        private void publish(String text) {
+            if (!state.compareAndSet(OPEN, SENDING)) {
+                return; // Round già uscito o anteprima già inviata da un tentativo precedente
+            }
+            question = text;
+            previewNanos = System.nanoTime() - startNanos;
+
+            Map<String, Object> previewMsg = new HashMap<>();
+            previewMsg.put("action", "QUESTION_PREVIEW");
+            previewMsg.put("previewId", previewId);
+            previewMsg.put("type", type);
+            previewMsg.put("question", text);
+            messagingTemplate.convertAndSend("/topic/game/" + gameId, Optional.of(previewMsg));
+            previews.increment();
+
+            if (!state.compareAndSet(SENDING, SENT)) {
+                retract(); // Il round è stato pubblicato mentre l'anteprima partiva
+            }
+        }
+
+        /**
+         * Chiamato subito prima del round: {@code finalQuestion} è il testo pubblicato, null se la generazione è fallita.
+         */
+        private void close(String finalQuestion) {
+            int previous = state.getAndSet(CLOSED);
+            if (previous != SENT) {
+                return;
+            }
+            if (finalQuestion == null || !finalQuestion.equals(question)) {
+                retract();
+            } else {
+                previewedRounds.increment();
+                totalPreviewMs.add(previewNanos / 1_000_000);
+                totalRoundMs.add((System.nanoTime() - startNanos) / 1_000_000);
+            }
+        }
+
+        private void retract() {
+            Map<String, Object> retractMsg = new HashMap<>();
+            retractMsg.put("action", "QUESTION_PREVIEW_RETRACTED");
+            retractMsg.put("previewId", previewId);
+            messagingTemplate.convertAndSend("/topic/game/" + gameId, Optional.of(retractMsg));
+            retractions.increment();
+        }
+    }
+
+    private void completeTicket(RoundTicketDto ticket, String category, String type, String difficulty) {
+        try {
+            GameRound round = createAiRound(ticket.gameId, category, type, difficulty);
+            ticket.roundId = round.getId();
+            ticket.status = "COMPLETED";
+        } catch (Exception e) {
+            ticket.error = e.getMessage();
+            ticket.status = "FAILED";
+            log.error("❌ Generazione round fallita (ticket {}): {}", ticket.ticketId, e.getMessage());
+            publishFailure(ticket, String.valueOf(e.getMessage()));
+        }
+    }
+
+    /**
+     * ❌ Toglie lo spinner di ROUND_GENERATING dalla TV.
+     */
+    private void publishFailure(RoundTicketDto ticket, String error) {
+        Map<String, Object> failedMsg = new HashMap<>();
+        failedMsg.put("action", "ROUND_GENERATION_FAILED");
+        failedMsg.put("ticketId", ticket.ticketId);
+        failedMsg.put("error", error);
+        messagingTemplate.convertAndSend("/topic/game/" + ticket.gameId, Optional.of(failedMsg));
+    }
+
+    private void registerTicket(RoundTicketDto ticket) {
+        tickets.put(ticket.ticketId, ticket);
+        ticketOrder.add(ticket.ticketId);
+        while (tickets.size() > MAX_TICKETS) {
+            String oldest = ticketOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            tickets.remove(oldest);
+        }
+    }
+
+    private String normalizeWheelPayload(String aiPayload) {
+        if (aiPayload == null)
+            return new JSONObject().put("proverb", "").toString();
+        String p = aiPayload.trim();
+
+        String raw = tryExtractRawProverb(p);
+
+        if (raw == null) {
+            if (p.startsWith("{")) {
+                try {
+                    JSONObject obj = new JSONObject(p);
+                    if (obj.has("question")) {
+                        String q = obj.getString("question");
+                        raw = extractProverbFromQuestionText(q);
+                    }
+                    if (raw == null && obj.has("payload")) {
+                        Object nested = obj.get("payload");
+                        String nestedStr = String.valueOf(nested);
+                        raw = tryExtractRawProverb(nestedStr);
+                    }
+                } catch (Exception ignored) {
+                }
+            }
+        }
+
+        if (raw == null)
+            raw = p;
+
+        JSONObject out = new JSONObject();
+        out.put("proverb", raw);
+        return out.toString();
+    }
+
+    private String tryExtractRawProverb(String p) {
+        if (p == null)
+            return null;
+        String trimmed = p.trim();
+
+        if (trimmed.startsWith("{")) {
+            try {
+                JSONObject obj = new JSONObject(trimmed);
+                if (obj.has("proverb"))
+                    return obj.getString("proverb");
+                if (obj.has("payload")) {
+                    Object nested = obj.get("payload");
+                    String nestedStr = String.valueOf(nested).trim();
+                    if (nestedStr.startsWith("{"))
+                        return tryExtractRawProverb(nestedStr);
+                    return nestedStr;
+                }
+                if (obj.has("question")) {
+                    String q = obj.getString("question");
+                    String ext = extractProverbFromQuestionText(q);
+                    if (ext != null)
+                        return ext;
+                }
+            } catch (Exception ignored) {
+            }
+        }
+
+        if ((trimmed.startsWith("\"{") && trimmed.endsWith("}\"")) || trimmed.contains("\\{")) {
+            String unquoted = trimmed;
+            if (unquoted.startsWith("\"") && unquoted.endsWith("\"")) {
+                unquoted = unquoted.substring(1, unquoted.length() - 1);
+            }
+            unquoted = unquoted.replace("\\\"", "\"");
+            unquoted = unquoted.replace("\\\\", "\\");
+            return tryExtractRawProverb(unquoted);
+        }
+
+        String ext = extractProverbFromQuestionText(trimmed);
+        if (ext != null)
+            return ext;
+
+        return null;
+    }
+
+    private String extractProverbFromQuestionText(String text) {
+        if (text == null)
+            return null;
+        String t = text.trim();
+
+        int first = t.indexOf('\'');
+        if (first >= 0) {
+            int second = t.indexOf('\'', first + 1);
+            if (second > first) {
+                String inside = t.substring(first + 1, second).trim();
+                if (inside.length() > 3)
+                    return inside;
+            }
+        }
+
+        first = t.indexOf('"');
+        if (first >= 0) {
+            int second = t.indexOf('"', first + 1);
+            if (second > first) {
+                String inside = t.substring(first + 1, second).trim();
+                if (inside.length() > 3)
+                    return inside;
+            }
+        }
+
+        String marker = "Il proverbio ";
+        int idx = t.indexOf(marker);
+        if (idx >= 0) {
+            int start = idx + marker.length();
+            int end = t.indexOf(" significa", start);
+            if (end > start) {
+                String inside = t.substring(start, end).trim();
+                if ((inside.startsWith("\"") && inside.endsWith("\""))
+                        || (inside.startsWith("'") && inside.endsWith("'"))) {
+                    inside = inside.substring(1, inside.length() - 1);
+                }
+                if (inside.length() > 3)
+                    return inside;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,185 @@
+package com.pub_game_be.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🗳️ Conteggio delle risposte di un round, tenuto dal server: un LongAdder per opzione, un set concorrente
+ * dei giocatori che hanno già risposto (la seconda risposta non conta) e l'ordine d'arrivo delle risposte
+ * corrette, preso da un contatore atomico. Nessun lock, anche con tutto il pub che risponde insieme.
+ */
+public class AnswerTally {
+
+    public static final String OTHER = "ALTRO";
+    private static final int MAX_FREE_ANSWERS = 64;
+
+    private final int gameId;
+    private final Long roundId;
+    private final String correctAnswer;
+    private final List<String> options;
+    private final String blurId;
+    private final long openedAt = System.currentTimeMillis();
+
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+    private final Set<String> players = ConcurrentHashMap.newKeySet();
+    private final Queue<CorrectAnswer> correctOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger correctCounter = new AtomicInteger();
+    private final LongAdder answers = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile long lastActivity = openedAt;
+
+    public AnswerTally(int gameId, Long roundId, String correctAnswer, List<String> options) {
+        this(gameId, roundId, correctAnswer, options, null);
+    }
+
+    /**
+     * @param blurId per IMAGE_BLUR, la foto nitida da rivelare con ANSWER_RESULT
+     */
+    public AnswerTally(int gameId, Long roundId, String correctAnswer, List<String> options, String blurId) {
+        this.gameId = gameId;
+        this.roundId = roundId;
+        this.correctAnswer = correctAnswer;
+        this.options = List.copyOf(options);
+        this.blurId = blurId;
+        for (String option : this.options) {
+            counts.put(normalize(option), new LongAdder());
+        }
+    }
+
+    /**
+     * Una risposta corretta: chi, in che posizione e dopo quanti ms dall'apertura del round.
+     */
+    public record CorrectAnswer(String playerName, int position, long elapsedMs) {
+    }
+
+    public enum Result {
+        ACCEPTED,
+        CORRECT,
+        DUPLICATE,
+        CLOSED
+    }
+
+    public int getGameId() {
+        return gameId;
+    }
+
+    public Long getRoundId() {
+        return roundId;
+    }
+
+    public String getCorrectAnswer() {
+        return correctAnswer;
+    }
+
+    public String getBlurId() {
+        return blurId;
+    }
+
+    public long getOpenedAt() {
+        return openedAt;
+    }
+
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    public Result register(String playerName, String answer) {
+        lastActivity = System.currentTimeMillis();
+        if (closed.get()) {
+            return Result.CLOSED;
+        }
+        if (!players.add(playerName)) {
+            duplicates.increment();
+            return Result.DUPLICATE;
+        }
+
+        answers.increment();
+        String key = normalize(answer);
+        LongAdder counter = counts.get(key);
+        if (counter == null) {
+            // Risposte libere (es. CHRONO): una voce per risposta finché sono poche, poi "ALTRO"
+            counter = counts.size() < options.size() + MAX_FREE_ANSWERS
+                    ? counts.computeIfAbsent(key, k -> new LongAdder())
+                    : counts.computeIfAbsent(OTHER, k -> new LongAdder());
+        }
+        counter.increment();
+        dirty.set(true);
+
+        if (correctAnswer != null && key.equals(normalize(correctAnswer))) {
+            int position = correctCounter.incrementAndGet();
+            correctOrder.add(new CorrectAnswer(playerName, position, lastActivity - openedAt));
+            return Result.CORRECT;
+        }
+        return Result.ACCEPTED;
+    }
+
+    /**
+     * True una sola volta per ogni gruppo di risposte arrivate dall'ultimo snapshot.
+     */
+    public boolean drainDirty() {
+        return dirty.compareAndSet(true, false);
+    }
+
+    public boolean close() {
+        return closed.compareAndSet(false, true);
+    }
+
+    /**
+     * Conteggi per opzione, nell'ordine delle opzioni del round e poi le risposte libere.
+     */
+    public Map<String, Long> counts() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        for (String option : options) {
+            out.put(option, counts.get(normalize(option)).sum());
+        }
+        for (Map.Entry<String, LongAdder> entry : counts.entrySet()) {
+            if (!out.containsKey(entry.getKey()) && !isOption(entry.getKey())) {
+                out.put(entry.getKey(), entry.getValue().sum());
+            }
+        }
+        return out;
+    }
+
+    public List<CorrectAnswer> correctAnswers() {
+        List<CorrectAnswer> ordered = new ArrayList<>(correctOrder);
+        ordered.sort((a, b) -> Integer.compare(a.position(), b.position()));
+        return ordered;
+    }
+
+    public long getAnswers() {
+        return answers.sum();
+    }
+
+    public long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    private boolean isOption(String key) {
+        for (String option : options) {
+            if (normalize(option).equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String normalize(String answer) {
+        return answer == null ? "" : answer.trim().toUpperCase(Locale.ROOT);
+    }
+}
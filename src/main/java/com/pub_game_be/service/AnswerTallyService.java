@@ -0,0 +1,207 @@
+package com.pub_game_be.service;
+
+import com.pub_game_be.domain.game_round.GameRound;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🗳️ Conta le risposte lato server, un {@link AnswerTally} per partita (il round corrente).
+ * Prima ogni risposta veniva ripubblicata a tutti su {@code /responses}: con 80 giocatori ogni TV e
+ * telefono riceveva 80 messaggi per domanda. Ora su {@code /topic/game/{id}/responses} escono solo
+ * ANSWER_TALLY aggregati, al massimo uno ogni {@code game.answers.snapshot-ms}, e un ANSWER_RESULT
+ * finale quando il round si chiude, che assegna anche i punti ai corretti ({@link LeaderboardService})
+ * e, per IMAGE_BLUR, porta l'URL della foto nitida ({@link BlurPyramidService#revealUrl}).
+ */
+@Service
+public class AnswerTallyService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnswerTallyService.class);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final GameService gameService;
+    private final LeaderboardService leaderboardService;
+    private final BlurPyramidService blurPyramidService;
+    private final long idleEvictMs;
+
+    private final Map<Integer, AnswerTally> tallies = new ConcurrentHashMap<>();
+
+    private final LongAdder answers = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder lateAnswers = new LongAdder();
+    private final LongAdder snapshots = new LongAdder();
+    private final LongAdder results = new LongAdder();
+    private final LongAdder implicitCloses = new LongAdder();
+
+    public AnswerTallyService(SimpMessagingTemplate messagingTemplate,
+            GameService gameService,
+            LeaderboardService leaderboardService,
+            BlurPyramidService blurPyramidService,
+            @Value("${game.answers.idle-evict-ms:1800000}") long idleEvictMs) {
+        this.messagingTemplate = messagingTemplate;
+        this.gameService = gameService;
+        this.leaderboardService = leaderboardService;
+        this.blurPyramidService = blurPyramidService;
+        this.idleEvictMs = idleEvictMs;
+    }
+
+    /**
+     * 🆕 Nuovo round pubblicato: il conteggio del round precedente viene sostituito. Se la TV è passata
+     * oltre senza chiuderlo, lo si chiude qui (ANSWER_RESULT e punti) invece di perderne le risposte.
+     */
+    public AnswerTally open(GameRound round) {
+        int gameId = round.getGame().getId().intValue();
+        AnswerTally tally = newTally(gameId, round);
+        AnswerTally previous = tallies.put(gameId, tally);
+        if (previous != null && previous.close()) {
+            implicitCloses.increment();
+            publishResult(gameId, previous);
+        }
+        return tally;
+    }
+
+    /**
+     * 📥 Una risposta dal telefono. Se il server è ripartito a round in corso, il conteggio
+     * viene aperto sul round corrente letto dal database.
+     */
+    public AnswerTally.Result answer(int gameId, String playerName, String answer) {
+        if (playerName == null || playerName.isBlank()) {
+            return AnswerTally.Result.CLOSED;
+        }
+        AnswerTally tally = tallies.get(gameId);
+        if (tally == null) {
+            Optional<GameRound> current = gameService.getCurrentRound((long) gameId);
+            if (current.isEmpty()) {
+                lateAnswers.increment();
+                return AnswerTally.Result.CLOSED;
+            }
+            tally = tallies.computeIfAbsent(gameId, id -> newTally(id, current.get()));
+        }
+
+        AnswerTally.Result result = tally.register(playerName, answer);
+        switch (result) {
+            case DUPLICATE -> duplicates.increment();
+            case CLOSED -> lateAnswers.increment();
+            default -> answers.increment();
+        }
+        return result;
+    }
+
+    /**
+     * 🏁 Round chiuso: un solo ANSWER_RESULT con conteggi finali, risposta giusta e ordine dei corretti.
+     */
+    public void close(int gameId) {
+        AnswerTally tally = tallies.get(gameId);
+        if (tally == null || !tally.close()) {
+            return;
+        }
+        publishResult(gameId, tally);
+    }
+
+    private void publishResult(int gameId, AnswerTally tally) {
+        List<Map<String, Object>> correct = new ArrayList<>();
+        for (AnswerTally.CorrectAnswer answer : tally.correctAnswers()) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("playerName", answer.playerName());
+            entry.put("position", answer.position());
+            entry.put("elapsedMs", answer.elapsedMs());
+            long points = leaderboardService.pointsForAnswer(answer.elapsedMs());
+            leaderboardService.award(gameId, answer.playerName(), points);
+            entry.put("points", points);
+            correct.add(entry);
+        }
+
+        Map<String, Object> resultMsg = new HashMap<>();
+        resultMsg.put("action", "ANSWER_RESULT");
+        resultMsg.put("roundId", tally.getRoundId());
+        resultMsg.put("correctAnswer", tally.getCorrectAnswer());
+        resultMsg.put("counts", tally.counts());
+        resultMsg.put("totalAnswers", tally.getAnswers());
+        resultMsg.put("correctPlayers", correct);
+        resultMsg.put("firstCorrect", correct.isEmpty() ? null : correct.get(0));
+        blurPyramidService.revealUrl(tally.getBlurId()).ifPresent(url -> resultMsg.put("imageUrl", url));
+
+        messagingTemplate.convertAndSend("/topic/game/" + gameId + "/responses", Optional.of(resultMsg));
+        results.increment();
+        log.atInfo().addKeyValue("gameId", gameId)
+                .log("🗳️ Round {} chiuso: {} risposte, {} corrette", tally.getRoundId(), tally.getAnswers(), correct.size());
+    }
+
+    /**
+     * 📡 Al massimo uno snapshot per round aperto e per tick, e solo se sono arrivate risposte.
+     */
+    @Scheduled(fixedRateString = "${game.answers.snapshot-ms:250}")
+    public void broadcastSnapshots() {
+        for (AnswerTally tally : tallies.values()) {
+            if (tally.isClosed() || !tally.drainDirty()) {
+                continue;
+            }
+
+            Map<String, Object> tallyMsg = new HashMap<>();
+            tallyMsg.put("action", "ANSWER_TALLY");
+            tallyMsg.put("roundId", tally.getRoundId());
+            tallyMsg.put("counts", tally.counts());
+            tallyMsg.put("totalAnswers", tally.getAnswers());
+
+            messagingTemplate.convertAndSend("/topic/game/" + tally.getGameId() + "/responses", Optional.of(tallyMsg));
+            snapshots.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${game.answers.evict-check-ms:60000}")
+    public void evictIdleTallies() {
+        long cutoff = System.currentTimeMillis() - idleEvictMs;
+        tallies.values().removeIf(tally -> tally.getLastActivity() < cutoff);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("activeRounds", tallies.size());
+        out.put("answers", answers.sum());
+        out.put("duplicates", duplicates.sum());
+        out.put("lateAnswers", lateAnswers.sum());
+        out.put("snapshotMessages", snapshots.sum());
+        out.put("resultMessages", results.sum());
+        out.put("implicitCloses", implicitCloses.sum());
+        long snapshotCount = snapshots.sum();
+        out.put("answersPerSnapshot", snapshotCount == 0 ? 0.0 : (double) answers.sum() / snapshotCount);
+        return out;
+    }
+
+    private AnswerTally newTally(int gameId, GameRound round) {
+        String correctAnswer = null;
+        String blurId = null;
+        List<String> options = new ArrayList<>();
+        if (round.getPayload() != null && !round.getPayload().isBlank()) {
+            try {
+                JSONObject payload = new JSONObject(round.getPayload());
+                correctAnswer = payload.has("correctAnswer") ? String.valueOf(payload.get("correctAnswer")) : null;
+                blurId = payload.optString("blurId", null);
+                JSONArray array = payload.optJSONArray("options");
+                if (array != null) {
+                    for (int i = 0; i < array.length(); i++) {
+                        options.add(String.valueOf(array.get(i)));
+                    }
+                }
+            } catch (JSONException e) {
+                log.warn("❌ Payload del round {} illeggibile per il conteggio: {}", round.getId(), e.getMessage());
+            }
+        }
+        return new AnswerTally(gameId, round.getId(), correctAnswer, options, blurId);
+    }
+}
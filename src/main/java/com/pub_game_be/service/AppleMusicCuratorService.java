@@ -3,22 +3,63 @@ package com.pub_game_be.service;
 import com.pub_game_be.dto.AppleMusicResponse;
 import com.pub_game_be.dto.AppleMusicTrack;
 import com.pub_game_be.dto.MusicTrackDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class AppleMusicCuratorService {
 
+    private static final Logger log = LoggerFactory.getLogger(AppleMusicCuratorService.class);
+
     private static final String API_URL = "https://itunes.apple.com/search";
     private final RestTemplate restTemplate;
     private final Random random = new Random();
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Executor musicCatalogExecutor;
+    private final int tracksPerArtist;
+
+    @Value("${music.catalog.enabled:true}")
+    private boolean catalogEnabled;
+
+    private volatile Catalog catalog;
+    private volatile long lastRefreshMs;
+    private volatile int lastRefreshFailures;
+    private final LongAdder catalogRefreshes = new LongAdder();
+    private final LongAdder catalogHits = new LongAdder();
+    private final LongAdder catalogMisses = new LongAdder();
+
+    // gameId -> trackId già usciti; solo le ultime MAX_TRACKED_GAMES partite
+    private static final int MAX_TRACKED_GAMES = 256;
+    private final Map<Long, Set<Long>> playedByGame = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Set<Long>> eldest) {
+            return size() > MAX_TRACKED_GAMES;
+        }
+    };
 
     private static final List<String> ITALIAN_ARTISTS = List.of(
             "Vasco Rossi", "Ligabue", "Zucchero", "Lucio Battisti",
@@ -50,13 +91,182 @@ public class AppleMusicCuratorService {
 
             "Eminem", "50 Cent", "Jay-Z", "Snoop Dogg");
 
-    public AppleMusicCuratorService(RestTemplate restTemplate) {
+    public AppleMusicCuratorService(RestTemplate restTemplate,
+            @Qualifier("musicCatalogExecutor") Executor musicCatalogExecutor,
+            @Value("${music.catalog.tracks-per-artist:25}") int tracksPerArtist) {
         this.restTemplate = restTemplate;
+        this.musicCatalogExecutor = musicCatalogExecutor;
+        this.tracksPerArtist = tracksPerArtist;
+    }
+
+    /**
+     * 🎵 Brano compatto in memoria: solo i campi che servono al round.
+     */
+    private record CatalogTrack(long trackId, String title, String artist, short year,
+            String previewUrl, String albumCover) {
+    }
+
+    /**
+     * Istantanea immutabile del catalogo, sostituita in blocco a ogni refresh.
+     */
+    private record Catalog(Map<String, CatalogTrack[]> byArtist, CatalogTrack[] italian,
+            CatalogTrack[] international, long loadedAt) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preloadCatalog() {
+        if (catalogEnabled) {
+            // Il refresh aspetta i download sul musicCatalogExecutor: non deve occuparne un thread
+            CompletableFuture.runAsync(this::refreshCatalog).exceptionally(e -> null);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${music.catalog.refresh-ms:21600000}",
+            fixedDelayString = "${music.catalog.refresh-ms:21600000}")
+    public void scheduledRefresh() {
+        if (catalogEnabled) {
+            refreshCatalog();
+        }
+    }
+
+    /**
+     * Scarica in parallelo i brani di tutti gli artisti; chi fallisce tiene i brani del giro precedente.
+     * La ricerca iTunes restituisce una lista vuota anche quando la chiamata fallisce, quindi zero brani
+     * conta come fallimento: un artista sparisce dal catalogo solo se non era mai stato caricato.
+     */
+    public void refreshCatalog() {
+        long start = System.currentTimeMillis();
+        Catalog previous = catalog;
+
+        List<String> artists = new ArrayList<>(ITALIAN_ARTISTS);
+        artists.addAll(INTERNATIONAL_ARTISTS);
+
+        Map<String, CompletableFuture<CatalogTrack[]>> pending = new LinkedHashMap<>();
+        for (String artist : artists) {
+            pending.put(artist, CompletableFuture.supplyAsync(() -> fetchArtistTracks(artist), musicCatalogExecutor));
+        }
+
+        Map<String, CatalogTrack[]> byArtist = new HashMap<>();
+        int failed = 0;
+        for (Map.Entry<String, CompletableFuture<CatalogTrack[]>> entry : pending.entrySet()) {
+            CatalogTrack[] tracks;
+            try {
+                tracks = entry.getValue().join();
+            } catch (Exception e) {
+                tracks = null;
+            }
+            if (tracks == null || tracks.length == 0) {
+                failed++;
+                tracks = previous == null ? null : previous.byArtist.get(entry.getKey());
+            }
+            if (tracks != null && tracks.length > 0) {
+                byArtist.put(entry.getKey(), tracks);
+            }
+        }
+
+        catalog = new Catalog(byArtist, flatten(byArtist, ITALIAN_ARTISTS), flatten(byArtist, INTERNATIONAL_ARTISTS),
+                System.currentTimeMillis());
+        catalogRefreshes.increment();
+        lastRefreshMs = System.currentTimeMillis() - start;
+        lastRefreshFailures = failed;
+        log.info("🎵 Catalogo musicale: {} brani italiani, {} internazionali in {} ms ({} artisti falliti)",
+                catalog.italian.length, catalog.international.length, lastRefreshMs, failed);
     }
 
     public MusicTrackDto getFamousSong() {
+        return getFamousSong(null);
+    }
+
+    /**
+     * Brano casuale dal catalogo in memoria senza ripetere quelli già usati nella partita
+     * (finché il gruppo non è esaurito). Senza catalogo si torna alla ricerca live su iTunes.
+     */
+    public MusicTrackDto getFamousSong(Long gameId) {
         boolean italian = random.nextDouble() < 0.7;
-        return italian ? getItalianSong() : getInternationalSong();
+        String type = italian ? "italian" : "international";
+
+        Catalog current = catalog;
+        CatalogTrack[] tracks = current == null ? null : (italian ? current.italian : current.international);
+        if (tracks == null || tracks.length == 0) {
+            catalogMisses.increment();
+            return italian ? getItalianSong() : getInternationalSong();
+        }
+
+        catalogHits.increment();
+        return toDto(pickUnplayed(gameId, tracks), type);
+    }
+
+    public Map<String, Object> stats() {
+        Catalog current = catalog;
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", catalogEnabled);
+        out.put("artists", current == null ? 0 : current.byArtist.size());
+        out.put("italianTracks", current == null ? 0 : current.italian.length);
+        out.put("internationalTracks", current == null ? 0 : current.international.length);
+        out.put("loadedAt", current == null ? null : current.loadedAt);
+        out.put("refreshes", catalogRefreshes.sum());
+        out.put("lastRefreshMs", lastRefreshMs);
+        out.put("lastRefreshFailures", lastRefreshFailures);
+        out.put("catalogHits", catalogHits.sum());
+        out.put("liveSearches", catalogMisses.sum());
+        synchronized (playedByGame) {
+            out.put("trackedGames", playedByGame.size());
+        }
+        return out;
+    }
+
+    private CatalogTrack pickUnplayed(Long gameId, CatalogTrack[] tracks) {
+        if (gameId == null) {
+            return tracks[random.nextInt(tracks.length)];
+        }
+        synchronized (playedByGame) {
+            Set<Long> played = playedByGame.computeIfAbsent(gameId, id -> new HashSet<>());
+
+            int offset = random.nextInt(tracks.length);
+            for (int i = 0; i < tracks.length; i++) {
+                CatalogTrack candidate = tracks[(offset + i) % tracks.length];
+                if (played.add(candidate.trackId)) {
+                    return candidate;
+                }
+            }
+
+            // Gruppo esaurito per questa partita: si ricomincia
+            played.clear();
+            CatalogTrack track = tracks[offset];
+            played.add(track.trackId);
+            return track;
+        }
+    }
+
+    private static CatalogTrack[] flatten(Map<String, CatalogTrack[]> byArtist, List<String> artists) {
+        return artists.stream()
+                .map(byArtist::get)
+                .filter(Objects::nonNull)
+                .flatMap(Arrays::stream)
+                .toArray(CatalogTrack[]::new);
+    }
+
+    private CatalogTrack[] fetchArtistTracks(String artist) {
+        List<AppleMusicTrack> validTracks = searchValidTracks(artist);
+        return validTracks.stream()
+                .limit(tracksPerArtist)
+                .map(track -> new CatalogTrack(track.trackId, track.trackName, track.artistName,
+                        (short) parseYear(track.releaseDate), track.previewUrl, albumCover(track)))
+                .toArray(CatalogTrack[]::new);
+    }
+
+    private MusicTrackDto toDto(CatalogTrack track, String type) {
+        MusicTrackDto dto = new MusicTrackDto();
+        dto.id = String.valueOf(track.trackId);
+        dto.title = track.title;
+        dto.artist = track.artist;
+        dto.previewUrl = track.previewUrl;
+        dto.albumCover = track.albumCover;
+        dto.year = track.year > 0 ? (int) track.year : null;
+        dto.duration = 30;
+        dto.type = type;
+        dto.source = "apple-music";
+        return dto;
     }
 
     private MusicTrackDto getItalianSong() {
@@ -73,57 +283,23 @@ public class AppleMusicCuratorService {
 
     private MusicTrackDto searchTopSongByArtist(String artist, String type) {
         try {
-            String query = URLEncoder.encode(artist, StandardCharsets.UTF_8);
-
-            String url = API_URL + "?term=" + query +
-                    "&entity=song&limit=50&country=IT";
-
-            String rawJson = restTemplate.getForObject(url, String.class);
-            AppleMusicResponse response = objectMapper.readValue(rawJson, AppleMusicResponse.class);
-
-            if (response == null || response.results == null || response.results.isEmpty()) {
-                return getFallbackSong(type);
-            }
-
-            List<AppleMusicTrack> validTracks = response.results.stream()
-                    .filter(t -> t.previewUrl != null && !t.previewUrl.isEmpty())
-                    .filter(t -> t.artistName != null &&
-                            t.artistName.toLowerCase().contains(artist.toLowerCase().split(" ")[0]))
-                    .filter(t -> {
-                        if (t.releaseDate == null || t.releaseDate.length() < 4)
-                            return true;
-                        try {
-                            int year = Integer.parseInt(t.releaseDate.substring(0, 4));
-                            return year >= 1970;
-                        } catch (Exception e) {
-                            return true;
-                        }
-                    })
-                    .toList();
+            List<AppleMusicTrack> validTracks = searchValidTracks(artist);
 
             if (validTracks.isEmpty()) {
                 return getFallbackSong(type);
             }
 
-            AppleMusicTrack track = validTracks.get(0);
+            AppleMusicTrack track = validTracks.get(random.nextInt(validTracks.size()));
 
             MusicTrackDto dto = new MusicTrackDto();
             dto.id = String.valueOf(track.trackId);
             dto.title = track.trackName;
             dto.artist = track.artistName;
             dto.previewUrl = track.previewUrl;
+            dto.albumCover = albumCover(track);
 
-            dto.albumCover = track.artworkUrl100 != null
-                    ? track.artworkUrl100.replace("100x100", "600x600")
-                    : "";
-
-            if (track.releaseDate != null && track.releaseDate.length() >= 4) {
-                try {
-                    dto.year = Integer.parseInt(track.releaseDate.substring(0, 4));
-                } catch (Exception e) {
-                    dto.year = null;
-                }
-            }
+            int year = parseYear(track.releaseDate);
+            dto.year = year > 0 ? year : null;
 
             dto.duration = 30;
             dto.type = type;
@@ -136,6 +312,52 @@ public class AppleMusicCuratorService {
         }
     }
 
+    private List<AppleMusicTrack> searchValidTracks(String artist) {
+        String query = URLEncoder.encode(artist, StandardCharsets.UTF_8);
+
+        String url = API_URL + "?term=" + query +
+                "&entity=song&limit=50&country=IT";
+
+        String rawJson = restTemplate.getForObject(url, String.class);
+        AppleMusicResponse response;
+        try {
+            response = objectMapper.readValue(rawJson, AppleMusicResponse.class);
+        } catch (Exception e) {
+            throw new IllegalStateException("Risposta iTunes non valida per " + artist, e);
+        }
+
+        if (response == null || response.results == null) {
+            return List.of();
+        }
+
+        return response.results.stream()
+                .filter(t -> t.previewUrl != null && !t.previewUrl.isEmpty())
+                .filter(t -> t.artistName != null &&
+                        t.artistName.toLowerCase().contains(artist.toLowerCase().split(" ")[0]))
+                .filter(t -> {
+                    int year = parseYear(t.releaseDate);
+                    return year == 0 || year >= 1970;
+                })
+                .toList();
+    }
+
+    private static int parseYear(String releaseDate) {
+        if (releaseDate == null || releaseDate.length() < 4) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(releaseDate.substring(0, 4));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String albumCover(AppleMusicTrack track) {
+        return track.artworkUrl100 != null
+                ? track.artworkUrl100.replace("100x100", "600x600")
+                : "";
+    }
+
     private MusicTrackDto getFallbackSong(String type) {
         MusicTrackDto dto = new MusicTrackDto();
         dto.source = "fallback";
@@ -0,0 +1,226 @@
+package com.pub_game_be.service;
+
+import com.pub_game_be.repository.GameRepository;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🏟️ Sequenza condivisa di domande ARENA per partita.
+ * Il batch da 40 domande viene generato una volta e tutti i dispositivi leggono la domanda N
+ * dalla memoria del server; quando la sequenza sta per finire parte un nuovo batch in background.
+ * Le domande già in sequenza non vengono riaggiunte dai batch successivi e le sequenze ferme da
+ * {@code game.arena.idle-evict-ms} vengono rimosse.
+ */
+@Service
+public class ArenaQuestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ArenaQuestionService.class);
+
+    private final GameRepository gameRepo;
+    private final QuestionGeneratorService questionGeneratorService;
+    private final RequestCoalescer requestCoalescer;
+    private final Executor batchExecutor;
+
+    @Value("${game.arena.refill-threshold:10}")
+    private int refillThreshold;
+
+    @Value("${game.arena.max-questions:400}")
+    private int maxQuestions;
+
+    @Value("${game.arena.batch-wait-ms:15000}")
+    private long batchWaitMs;
+
+    @Value("${game.arena.idle-evict-ms:1800000}")
+    private long idleEvictMs;
+
+    private final Map<Long, ArenaSequence> sequences = new ConcurrentHashMap<>();
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    public ArenaQuestionService(GameRepository gameRepo,
+            QuestionGeneratorService questionGeneratorService,
+            RequestCoalescer requestCoalescer,
+            @Qualifier("arenaBatchExecutor") Executor batchExecutor) {
+        this.gameRepo = gameRepo;
+        this.questionGeneratorService = questionGeneratorService;
+        this.requestCoalescer = requestCoalescer;
+        this.batchExecutor = batchExecutor;
+    }
+
+    /**
+     * 🎬 Nuovo round ARENA: sostituisce la sequenza della partita e genera subito il primo batch.
+     */
+    public String startSequence(Long gameId) {
+        ArenaSequence sequence = new ArenaSequence();
+        sequences.put(gameId, sequence);
+        awaitBatch(sequence.requestBatch());
+
+        JSONObject wrapper = new JSONObject();
+        wrapper.put("type", "ARENA");
+        wrapper.put("questions", new JSONArray()); // I dispositivi leggono per indice da /arena-question
+        wrapper.put("sequenceSize", sequence.questions.size());
+        return wrapper.toString();
+    }
+
+    /**
+     * 📲 Domanda {@code index} della sequenza della partita. Senza indice (client vecchi) restituisce
+     * una domanda a caso della sequenza, sempre senza chiamare l'AI.
+     * La sequenza è a categorie miste: {@code category} vale solo per la domanda singola generata
+     * quando la sequenza è ancora vuota. Una sequenza nuova viene aperta solo per partite che esistono, altrimenti 404.
+     */
+    public String getQuestion(Long gameId, String category, Integer index) {
+        reads.increment();
+        ArenaSequence sequence = sequences.get(gameId);
+        if (sequence == null) {
+            if (!gameRepo.existsById(gameId)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Gioco non trovato");
+            }
+            sequence = sequences.computeIfAbsent(gameId, id -> new ArenaSequence());
+        }
+        sequence.lastActivity = System.currentTimeMillis();
+        List<String> questions = sequence.questions;
+
+        if (questions.isEmpty()) {
+            awaitBatch(sequence.requestBatch());
+        }
+
+        if (index == null || index < 0) {
+            if (questions.isEmpty()) {
+                return singleQuestion(gameId, category);
+            }
+            return questions.get(ThreadLocalRandom.current().nextInt(questions.size()));
+        }
+
+        if (index >= questions.size() - refillThreshold && questions.size() < maxQuestions) {
+            CompletableFuture<Void> pending = sequence.requestBatch();
+            if (index >= questions.size()) {
+                awaitBatch(pending);
+            }
+        }
+
+        int size = questions.size();
+        if (size == 0) {
+            return singleQuestion(gameId, category);
+        }
+        // Oltre il limite la sequenza ricomincia: tutti i dispositivi vedono comunque la stessa domanda
+        return questions.get(index < size ? index : index % size);
+    }
+
+    @Scheduled(fixedDelayString = "${game.arena.evict-check-ms:60000}")
+    public void evictIdleSequences() {
+        long cutoff = System.currentTimeMillis() - idleEvictMs;
+        sequences.values().removeIf(sequence -> {
+            boolean idle = sequence.lastActivity < cutoff && sequence.pending.get() == null;
+            if (idle) {
+                evicted.increment();
+            }
+            return idle;
+        });
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("batches", batches.sum());
+        out.put("reads", reads.sum());
+        out.put("duplicatesSkipped", duplicates.sum());
+        out.put("evictedSequences", evicted.sum());
+
+        Map<Long, Integer> sizes = new TreeMap<>();
+        sequences.forEach((gameId, sequence) -> sizes.put(gameId, sequence.questions.size()));
+        out.put("sequenceSizes", sizes);
+        return out;
+    }
+
+    private String singleQuestion(Long gameId, String category) {
+        String resolved = category == null || category.isBlank() ? "Cultura generale" : category.trim();
+        String key = RequestCoalescer.key(gameId, resolved, "ARENA", "single");
+        return requestCoalescer.execute(key,
+                () -> questionGeneratorService.generateSingleArenaQuestion(resolved));
+    }
+
+    private void awaitBatch(CompletableFuture<Void> pending) {
+        try {
+            pending.get(batchWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("❌ Batch ARENA non pronto: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Testo della domanda in minuscolo con gli spazi compattati; se il JSON non si legge, la stringa intera.
+     */
+    private static String textKey(String question) {
+        String text;
+        try {
+            text = new JSONObject(question).optString("question", question);
+        } catch (JSONException e) {
+            text = question;
+        }
+        return text.trim().replaceAll("\\s+", " ").toLowerCase();
+    }
+
+    private final class ArenaSequence {
+        // Append una volta ogni ~40 letture, letture lock-free da tutti i dispositivi
+        private final List<String> questions = new CopyOnWriteArrayList<>();
+        private final AtomicReference<CompletableFuture<Void>> pending = new AtomicReference<>();
+        // Testi normalizzati già in sequenza: l'LLM ripete spesso le stesse domande fra un batch e l'altro
+        private final Set<String> texts = ConcurrentHashMap.newKeySet();
+        private volatile long lastActivity = System.currentTimeMillis();
+
+        private CompletableFuture<Void> requestBatch() {
+            CompletableFuture<Void> current = pending.get();
+            if (current != null) {
+                return current;
+            }
+
+            CompletableFuture<Void> batch = new CompletableFuture<>();
+            if (!pending.compareAndSet(null, batch)) {
+                return pending.get() != null ? pending.get() : CompletableFuture.completedFuture(null);
+            }
+
+            try {
+                batchExecutor.execute(() -> {
+                    try {
+                        batches.increment();
+                        List<String> fresh = new ArrayList<>();
+                        for (String question : questionGeneratorService.generateArenaBatch()) {
+                            if (texts.add(textKey(question))) {
+                                fresh.add(question);
+                            } else {
+                                duplicates.increment();
+                            }
+                        }
+                        int room = maxQuestions - questions.size();
+                        questions.addAll(fresh.size() > room ? fresh.subList(0, Math.max(room, 0)) : fresh);
+                    } finally {
+                        pending.set(null);
+                        batch.complete(null);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                pending.set(null);
+                batch.completeExceptionally(e);
+            }
+            return batch;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.pub_game_be.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🌫️ Piramide di sfocature per IMAGE_BLUR calcolata lato server: per ogni foto in {@link DiskMediaCache}
+ * si generano {@code media.blur.levels} JPEG piccoli, dal più sfocato (livello 0) al più nitido, così la TV
+ * avanza di livello scaricando pochi KB e i telefoni non sfocano niente in locale.
+ * Il rendering gira sul pool limitato {@code blurRenderExecutor}, fuori dalle richieste HTTP.
+ * <p>
+ * I livelli si chiedono con un {@code blurId} opaco (HMAC della chiave della foto con un segreto del
+ * processo): dal payload non si risale a {@code /media/images/{key}}, quindi la foto nitida, cioè la
+ * risposta, arriva ai dispositivi solo con {@link #revealUrl} alla chiusura del round.
+ * Le foto sopra {@code media.blur.max-source-pixels} vengono rifiutate prima di decodificarle.
+ */
+@Service
+public class BlurPyramidService {
+
+    private final DiskMediaCache diskMediaCache;
+    private final Executor blurRenderExecutor;
+    private final int levels;
+    private final int width;
+    private final long maxMemoryBytes;
+    private final long maxSourcePixels;
+    private final byte[] blurSecret = new byte[32];
+    // blurId -> chiave della foto, i più vecchi escono oltre media.cache.max-sources
+    private final Map<String, String> blurKeys;
+
+    private final Map<String, CompletableFuture<List<byte[]>>> rendering = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, List<byte[]>> rendered = new LinkedHashMap<>(16, 0.75f, true);
+    private long renderedBytes;
+
+    private final LongAdder renders = new LongAdder();
+    private final LongAdder renderFailures = new LongAdder();
+    private final LongAdder totalRenderMs = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder oversized = new LongAdder();
+
+    public BlurPyramidService(DiskMediaCache diskMediaCache,
+            @Qualifier("blurRenderExecutor") Executor blurRenderExecutor,
+            @Value("${media.blur.levels:5}") int levels,
+            @Value("${media.blur.width:320}") int width,
+            @Value("${media.blur.max-memory-bytes:16777216}") long maxMemoryBytes,
+            @Value("${media.blur.max-source-pixels:25000000}") long maxSourcePixels,
+            @Value("${media.cache.max-sources:10000}") int maxBlurIds) {
+        this.diskMediaCache = diskMediaCache;
+        this.blurRenderExecutor = blurRenderExecutor;
+        this.levels = levels;
+        this.width = width;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.maxSourcePixels = maxSourcePixels;
+        new SecureRandom().nextBytes(blurSecret);
+        this.blurKeys = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxBlurIds;
+            }
+        });
+    }
+
+    public int getLevels() {
+        return levels;
+    }
+
+    /**
+     * Registra la foto {@code key} (già passata da {@link DiskMediaCache#proxy}), avvia il rendering appena
+     * è su disco e restituisce il suo {@code blurId}.
+     */
+    public String register(String key) {
+        String blurId = blurId(key);
+        blurKeys.put(blurId, key);
+        pyramid(key);
+        return blurId;
+    }
+
+    /**
+     * URL assoluti dei livelli di {@code blurId}, dal più sfocato al più nitido.
+     */
+    public List<String> blurUrls(String blurId) {
+        List<String> urls = new ArrayList<>(levels);
+        for (int level = 0; level < levels; level++) {
+            urls.add(diskMediaCache.urlFor("blur", blurId + "/" + level));
+        }
+        return urls;
+    }
+
+    /**
+     * URL della foto nitida per il {@code blurId} di un payload, da pubblicare solo a round chiuso.
+     */
+    public Optional<String> revealUrl(String blurId) {
+        String key = blurId == null ? null : blurKeys.get(blurId);
+        return Optional.ofNullable(key).map(k -> diskMediaCache.urlFor("images", k));
+    }
+
+    /**
+     * JPEG del livello richiesto, aspettando il rendering al massimo {@code waitMs}.
+     */
+    public Optional<byte[]> getLevel(String blurId, int level, long waitMs) {
+        String key = blurKeys.get(blurId);
+        if (key == null || level < 0 || level >= levels) {
+            return Optional.empty();
+        }
+        synchronized (rendered) {
+            List<byte[]> cached = rendered.get(key);
+            if (cached != null) {
+                hits.increment();
+                return Optional.of(cached.get(level));
+            }
+        }
+        misses.increment();
+        try {
+            return Optional.of(pyramid(key).get(waitMs, TimeUnit.MILLISECONDS).get(level));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long renderCount = renders.sum();
+        Map<String, Object> out = new LinkedHashMap<>();
+        synchronized (rendered) {
+            out.put("images", rendered.size());
+            out.put("bytes", renderedBytes);
+        }
+        out.put("maxMemoryBytes", maxMemoryBytes);
+        out.put("levels", levels);
+        out.put("renders", renderCount);
+        out.put("renderFailures", renderFailures.sum());
+        out.put("avgRenderMs", renderCount == 0 ? 0 : totalRenderMs.sum() / renderCount);
+        out.put("hits", hits.sum());
+        out.put("misses", misses.sum());
+        out.put("evictions", evictions.sum());
+        out.put("oversizedRejected", oversized.sum());
+        out.put("inFlight", rendering.size());
+        return out;
+    }
+
+    private CompletableFuture<List<byte[]>> pyramid(String key) {
+        synchronized (rendered) {
+            List<byte[]> cached = rendered.get(key);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        CompletableFuture<List<byte[]>> created = new CompletableFuture<>();
+        CompletableFuture<List<byte[]>> existing = rendering.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        diskMediaCache.whenCached(key)
+                .thenApplyAsync(media -> render(key, media), blurRenderExecutor)
+                .whenComplete((result, error) -> {
+                    rendering.remove(key, created);
+                    if (error != null) {
+                        created.completeExceptionally(error);
+                    } else {
+                        created.complete(result);
+                    }
+                });
+        return created;
+    }
+
+    private List<byte[]> render(String key, DiskMediaCache.CachedMedia media) {
+        long start = System.nanoTime();
+        try {
+            BufferedImage source = readBounded(media.file(), media.contentType());
+
+            int outWidth = Math.min(width, source.getWidth());
+            int outHeight = Math.max(1, source.getHeight() * outWidth / source.getWidth());
+            BufferedImage base = downscale(source, outWidth, outHeight);
+
+            List<byte[]> pyramid = new ArrayList<>(levels);
+            for (int level = 0; level < levels; level++) {
+                // Livello 0: ~1/64 della larghezza, ogni livello raddoppia i dettagli
+                int smallWidth = Math.max(4, outWidth >> (levels + 1 - level));
+                int smallHeight = Math.max(4, outHeight * smallWidth / outWidth);
+                BufferedImage blurred = upscale(downscale(base, smallWidth, smallHeight), outWidth, outHeight);
+                pyramid.add(encodeJpeg(blurred));
+            }
+
+            store(key, pyramid);
+            renders.increment();
+            return pyramid;
+        } catch (IOException e) {
+            renderFailures.increment();
+            throw new IllegalStateException(e);
+        } finally {
+            totalRenderMs.add((System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Legge prima solo l'intestazione: un JPEG da 20000x20000 decodificato occuperebbe 1,6 GB di heap.
+     */
+    private BufferedImage readBounded(Path file, String contentType) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Formato immagine non supportato: " + contentType);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+                if (sourceWidth <= 0 || sourceHeight <= 0 || (long) sourceWidth * sourceHeight > maxSourcePixels) {
+                    oversized.increment();
+                    throw new IOException("Immagine fuori limite: " + sourceWidth + "x" + sourceHeight);
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private String blurId(String key) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(blurSecret, "HmacSHA256"));
+            byte[] digest = mac.doFinal(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(Arrays.copyOf(digest, 16));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private BufferedImage downscale(BufferedImage source, int targetWidth, int targetHeight) {
+        Image scaled = source.getScaledInstance(targetWidth, targetHeight, Image.SCALE_AREA_AVERAGING);
+        BufferedImage out = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        g.drawImage(scaled, 0, 0, null);
+        g.dispose();
+        return out;
+    }
+
+    private BufferedImage upscale(BufferedImage source, int targetWidth, int targetHeight) {
+        BufferedImage out = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(source, 0, 0, targetWidth, targetHeight, null);
+        g.dispose();
+        return out;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 * 1024);
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+
+    private void store(String key, List<byte[]> pyramid) {
+        long size = pyramid.stream().mapToLong(bytes -> bytes.length).sum();
+        synchronized (rendered) {
+            List<byte[]> previous = rendered.put(key, pyramid);
+            if (previous != null) {
+                renderedBytes -= previous.stream().mapToLong(bytes -> bytes.length).sum();
+            }
+            renderedBytes += size;
+
+            var iterator = rendered.entrySet().iterator();
+            while (renderedBytes > maxMemoryBytes && rendered.size() > 1 && iterator.hasNext()) {
+                var eldest = iterator.next();
+                if (eldest.getKey().equals(key)) {
+                    continue;
+                }
+                renderedBytes -= eldest.getValue().stream().mapToLong(bytes -> bytes.length).sum();
+                iterator.remove();
+                evictions.increment();
+            }
+        }
+    }
+}
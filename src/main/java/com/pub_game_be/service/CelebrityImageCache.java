@@ -0,0 +1,198 @@
+package com.pub_game_be.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🗂️ Cache nome → URL foto per IMAGE_BLUR. Tiene anche i risultati negativi (nessuna foto su TMDB)
+ * con un TTL più corto, scarta le voci meno usate oltre maxEntries e, se è configurato un file,
+ * sopravvive ai riavvii.
+ */
+public class CelebrityImageCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CelebrityImageCache.class);
+
+    private static final long PERSIST_INTERVAL_MS = 60_000;
+
+    private final int maxEntries;
+    private final long positiveTtlMs;
+    private final long negativeTtlMs;
+    private final Path file;
+
+    private final LinkedHashMap<String, Entry> entries;
+    // Una scrittura alla volta sul file .tmp; le voci restano sotto il monitor di this
+    private final Object persistLock = new Object();
+    private boolean dirty;
+    private long lastPersistAt;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public CelebrityImageCache(int maxEntries, long positiveTtlMs, long negativeTtlMs, Path file) {
+        this.maxEntries = maxEntries;
+        this.positiveTtlMs = positiveTtlMs;
+        this.negativeTtlMs = negativeTtlMs;
+        this.file = file;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > CelebrityImageCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        load();
+    }
+
+    /**
+     * "  Beyoncé  KNOWLES" e "beyonce knowles" finiscono sulla stessa voce.
+     */
+    public static String normalize(String name) {
+        String stripped = Normalizer.normalize(name, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return stripped.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Vuoto se il nome non è in cache; {@code Optional.of(Optional.empty())} se è un negativo ancora valido.
+     */
+    public synchronized Optional<Optional<String>> get(String name) {
+        String key = normalize(name);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(key);
+            expirations.increment();
+            misses.increment();
+            dirty = true;
+            return Optional.empty();
+        }
+        if (entry.url == null) {
+            negativeHits.increment();
+        } else {
+            hits.increment();
+        }
+        return Optional.of(Optional.ofNullable(entry.url));
+    }
+
+    /**
+     * {@code url == null} registra un negativo: il nome è stato cercato e TMDB non ha una foto.
+     */
+    public void put(String name, String url) {
+        long ttl = url == null ? negativeTtlMs : positiveTtlMs;
+        boolean persistNow;
+        synchronized (this) {
+            entries.put(normalize(name), new Entry(url, System.currentTimeMillis() + ttl));
+            dirty = true;
+            persistNow = file != null && System.currentTimeMillis() - lastPersistAt >= PERSIST_INTERVAL_MS;
+        }
+        if (persistNow) {
+            persist();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum() + negativeHits.sum();
+        long lookups = hitCount + misses.sum();
+        Map<String, Object> out = new LinkedHashMap<>();
+        synchronized (this) {
+            out.put("size", entries.size());
+        }
+        out.put("maxEntries", maxEntries);
+        out.put("hits", hits.sum());
+        out.put("negativeHits", negativeHits.sum());
+        out.put("misses", misses.sum());
+        out.put("hitRatio", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        out.put("evictions", evictions.sum());
+        out.put("expirations", expirations.sum());
+        out.put("persistedTo", file == null ? null : file.toString());
+        return out;
+    }
+
+    /**
+     * Scrive le voci ancora valide su file (tmp + rename, così un crash non lascia file a metà).
+     * Le scritture sono serializzate e se una fallisce la cache resta dirty per il salvataggio successivo.
+     */
+    public void persist() {
+        if (file == null) {
+            return;
+        }
+        synchronized (persistLock) {
+            List<String> lines = new ArrayList<>();
+            synchronized (this) {
+                if (!dirty) {
+                    return;
+                }
+                long now = System.currentTimeMillis();
+                entries.forEach((key, entry) -> {
+                    if (entry.expiresAt > now) {
+                        lines.add(key + "\t" + (entry.url == null ? "" : entry.url) + "\t" + entry.expiresAt);
+                    }
+                });
+                dirty = false;
+                lastPersistAt = now;
+            }
+            try {
+                Path parent = file.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+                Files.write(tmp, lines, StandardCharsets.UTF_8);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                synchronized (this) {
+                    dirty = true;
+                }
+                log.warn("⚠️ Impossibile salvare la cache immagini: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void load() {
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String[] parts = line.split("\t", -1);
+                if (parts.length != 3) {
+                    continue;
+                }
+                long expiresAt = Long.parseLong(parts[2]);
+                if (expiresAt > now) {
+                    entries.put(parts[0], new Entry(parts[1].isEmpty() ? null : parts[1], expiresAt));
+                }
+            }
+            log.info("🗂️ Cache immagini caricata: {} voci da {}", entries.size(), file);
+        } catch (IOException | NumberFormatException e) {
+            log.warn("⚠️ Cache immagini illeggibile, riparto vuoto: {}", e.getMessage());
+            entries.clear();
+        }
+    }
+
+    private record Entry(String url, long expiresAt) {
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
@@ -22,10 +23,22 @@ public class CelebrityImageService {
 
     private final String PEXELS_API_URL = "https://api.pexels.com/v1/search";
 
+    private final RestTemplate restTemplate;
+
+    public CelebrityImageService(RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
     public String getImageUrl(String celebrityName) {
-        try {
-            RestTemplate restTemplate = new RestTemplate();
+        String imageUrl = findPexelsImageUrl(celebrityName);
+        return imageUrl != null ? imageUrl : getFallbackImageUrl(celebrityName);
+    }
 
+    /**
+     * Come {@link #getImageUrl} ma senza foto generica di ripiego: null se Pexels non trova nulla.
+     */
+    public String findPexelsImageUrl(String celebrityName) {
+        try {
             HttpHeaders headers = new HttpHeaders();
             headers.set("Authorization", pexelsApiKey);
 
@@ -45,10 +58,27 @@ public class CelebrityImageService {
                 return photo.getJSONObject("src").getString("large");
             }
 
-            return getFallbackImageUrl(celebrityName);
+            return null;
 
         } catch (Exception e) {
-            return getFallbackImageUrl(celebrityName);
+            return null;
+        }
+    }
+
+    /**
+     * URL Wikipedia Special:FilePath solo se esiste davvero: una HEAD (che segue il redirect
+     * verso upload.wikimedia.org) lo conferma, altrimenti null.
+     */
+    public String findWikipediaImageUrl(String celebrityName) {
+        if (celebrityName == null || celebrityName.isBlank()) {
+            return null;
+        }
+        String wikiUrl = wikipediaFilePathUrl(celebrityName.trim());
+        try {
+            restTemplate.headForHeaders(URI.create(wikiUrl));
+            return wikiUrl;
+        } catch (Exception e) {
+            return null;
         }
     }
 
@@ -113,6 +143,10 @@ public class CelebrityImageService {
             return normalized.get(key);
         }
 
+        return wikipediaFilePathUrl(trimmed);
+    }
+
+    private String wikipediaFilePathUrl(String trimmed) {
         Set<String> internationals = Set.of(
                 "leonardo dicaprio", "tom hanks", "margot robbie", "brad pitt",
                 "zendaya", "jake gyllenhaal", "pedro pascal", "oscar isaac");
@@ -120,9 +154,7 @@ public class CelebrityImageService {
         String wikiName = trimmed.replaceAll("\\s+", "_");
         String encoded = URLEncoder.encode(wikiName, StandardCharsets.UTF_8);
 
-        String lang = internationals.contains(key) ? "en" : "it";
-        String wikiUrl = String.format("https://%s.wikipedia.org/wiki/Special:FilePath/%s", lang, encoded);
-
-        return wikiUrl != null ? wikiUrl : getFallbackImageUrl(celebrityName);
+        String lang = internationals.contains(trimmed.toLowerCase(Locale.ROOT)) ? "en" : "it";
+        return String.format("https://%s.wikipedia.org/wiki/Special:FilePath/%s", lang, encoded);
     }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.pub_game_be.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ⚡ Circuit breaker minimale: dopo N fallimenti consecutivi si apre e rifiuta le chiamate,
+ * trascorso openMillis lascia passare una sola chiamata di prova (half-open).
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    private long opens;
+    private long shortCircuited;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt >= openMillis) {
+                    state = State.HALF_OPEN;
+                    probeInFlight = true;
+                    return true;
+                }
+                shortCircuited++;
+                return false;
+            default:
+                if (probeInFlight) {
+                    shortCircuited++;
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    /**
+     * Come {@link #tryAcquire()} ma senza cambiare stato: dice se una chiamata adesso passerebbe,
+     * compresa la prova dopo openMillis, così un pre-controllo non blocca il circuito su OPEN.
+     */
+    public synchronized boolean allowsRequest() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                return System.currentTimeMillis() - openedAt >= openMillis;
+            default:
+                return !probeInFlight;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    public synchronized void onFailure() {
+        probeInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            opens++;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("state", state.name());
+        out.put("consecutiveFailures", consecutiveFailures);
+        out.put("opens", opens);
+        out.put("shortCircuited", shortCircuited);
+        return out;
+    }
+}
@@ -0,0 +1,405 @@
+package com.pub_game_be.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.server.context.WebServerInitializedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * 💾 Cache su disco dei media dei round (foto IMAGE_BLUR, anteprime audio): ogni URL esterno viene
+ * scaricato una volta sola, salvato come {@code <sha256>.bin} con un sidecar {@code .meta}, e servito
+ * in LAN da {@code /media/...}. Oltre {@code media.cache.max-bytes} si scartano i file usati meno di recente.
+ * <p>
+ * Gli URL nel payload sono sempre assoluti, perché TV e telefoni girano su un'altra origine: base da
+ * {@code media.public-base-url} se impostato, altrimenti dalla richiesta in corso, altrimenti (generazioni
+ * in background) dall'indirizzo LAN e dalla porta del server.
+ */
+@Service
+public class DiskMediaCache {
+
+    private final RestTemplate restTemplate;
+    private final Executor mediaFetchExecutor;
+    private final Path dir;
+    private final long maxBytes;
+    private final long maxItemBytes;
+    private final String publicBaseUrl;
+    private final String serverHost;
+    private volatile String serverBaseUrl;
+
+    private final Map<String, CachedMedia> index = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<CachedMedia>> inFlight = new ConcurrentHashMap<>();
+    // Chiave -> URL d'origine, per scaricare su richiesta; i più vecchi escono oltre media.cache.max-sources
+    private final Map<String, String> sources;
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder downloads = new LongAdder();
+    private final LongAdder downloadFailures = new LongAdder();
+    private final LongAdder downloadedBytes = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder fetchRejections = new LongAdder();
+
+    public DiskMediaCache(RestTemplate restTemplate,
+            @Qualifier("mediaFetchExecutor") Executor mediaFetchExecutor,
+            @Value("${media.cache.dir:data/media-cache}") String dir,
+            @Value("${media.cache.max-bytes:268435456}") long maxBytes,
+            @Value("${media.cache.max-item-bytes:10485760}") long maxItemBytes,
+            @Value("${media.cache.max-sources:10000}") int maxSources,
+            @Value("${media.public-base-url:}") String publicBaseUrl,
+            @Value("${server.address:}") String serverAddress,
+            @Value("${server.port:8080}") int serverPort) throws IOException {
+        this.restTemplate = restTemplate;
+        this.mediaFetchExecutor = mediaFetchExecutor;
+        this.dir = Path.of(dir);
+        this.maxBytes = maxBytes;
+        this.maxItemBytes = maxItemBytes;
+        this.publicBaseUrl = publicBaseUrl.endsWith("/")
+                ? publicBaseUrl.substring(0, publicBaseUrl.length() - 1)
+                : publicBaseUrl;
+        this.serverHost = lanHost(serverAddress);
+        this.serverBaseUrl = "http://" + serverHost + ":" + serverPort;
+        this.sources = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxSources;
+            }
+        });
+        Files.createDirectories(this.dir);
+        loadIndex();
+    }
+
+    public record CachedMedia(String key, Path file, String contentType, long size, String etag,
+            String sourceUrl, long lastAccess) {
+
+        private CachedMedia touch() {
+            return new CachedMedia(key, file, contentType, size, etag, sourceUrl, System.currentTimeMillis());
+        }
+    }
+
+    public static String key(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * La porta vera (anche con {@code server.port=0}) si conosce solo a server avviato.
+     */
+    @EventListener
+    public void onWebServerReady(WebServerInitializedEvent event) {
+        serverBaseUrl = "http://" + serverHost + ":" + event.getWebServer().getPort();
+    }
+
+    /**
+     * Avvia il download in background e restituisce l'URL assoluto ({@code <base>/media/<kind>/<key>})
+     * da mettere nel payload al posto di quello esterno. Gli URL non http(s) tornano invariati.
+     */
+    public String proxy(String kind, String url) {
+        if (url == null || !(url.startsWith("http://") || url.startsWith("https://"))) {
+            return url;
+        }
+        String key = key(url);
+        sources.put(key, url);
+        if (!index.containsKey(key)) {
+            fetch(key);
+        }
+        return urlFor(kind, key);
+    }
+
+    /**
+     * URL assoluto di {@code /media/<path>}, con la stessa base di {@link #proxy}.
+     */
+    public String urlFor(String kind, String path) {
+        return baseUrl() + "/media/" + kind + "/" + path;
+    }
+
+    private String baseUrl() {
+        if (!publicBaseUrl.isEmpty()) {
+            return publicBaseUrl;
+        }
+        if (RequestContextHolder.getRequestAttributes() != null) {
+            return ServletUriComponentsBuilder.fromCurrentContextPath().toUriString();
+        }
+        return serverBaseUrl;
+    }
+
+    /**
+     * Con {@code server.address} su tutte le interfacce serve un indirizzo raggiungibile dagli altri
+     * dispositivi: il primo IPv4 di rete locale, altrimenti quello dell'host.
+     */
+    private static String lanHost(String serverAddress) {
+        if (!serverAddress.isBlank() && !"0.0.0.0".equals(serverAddress) && !"::".equals(serverAddress)) {
+            return serverAddress;
+        }
+        try {
+            for (NetworkInterface nic : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+                if (!nic.isUp() || nic.isLoopback() || nic.isVirtual()) {
+                    continue;
+                }
+                for (InetAddress address : Collections.list(nic.getInetAddresses())) {
+                    if (address instanceof Inet4Address && address.isSiteLocalAddress()) {
+                        return address.getHostAddress();
+                    }
+                }
+            }
+            return InetAddress.getLocalHost().getHostAddress();
+        } catch (SocketException | UnknownHostException e) {
+            return "localhost";
+        }
+    }
+
+    /**
+     * Il file in cache per {@code key}; se manca ma l'URL d'origine è noto lo scarica (o si accoda
+     * al download già in corso) aspettando al massimo {@code waitMs}.
+     */
+    public Optional<CachedMedia> get(String key, long waitMs) {
+        CachedMedia cached = index.computeIfPresent(key, (k, media) -> media.touch());
+        if (cached != null && Files.exists(cached.file)) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        if (cached != null) {
+            remove(key);
+        }
+
+        misses.increment();
+        CompletableFuture<CachedMedia> download = fetch(key);
+        if (download == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.ofNullable(download.get(waitMs, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Versione asincrona di {@link #get}: completa quando il file è su disco, fallisce se la chiave
+     * non è nota o il download non riesce.
+     */
+    public CompletableFuture<CachedMedia> whenCached(String key) {
+        CachedMedia cached = index.get(key);
+        if (cached != null && Files.exists(cached.file)) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<CachedMedia> download = fetch(key);
+        return download != null
+                ? download
+                : CompletableFuture.failedFuture(new IllegalArgumentException("Media sconosciuto: " + key));
+    }
+
+    public Map<String, Object> stats() {
+        long lookups = hits.sum() + misses.sum();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("files", index.size());
+        out.put("bytes", totalBytes.get());
+        out.put("maxBytes", maxBytes);
+        out.put("hits", hits.sum());
+        out.put("misses", misses.sum());
+        out.put("hitRatio", lookups == 0 ? 0.0 : (double) hits.sum() / lookups);
+        out.put("downloads", downloads.sum());
+        out.put("downloadFailures", downloadFailures.sum());
+        out.put("downloadedBytes", downloadedBytes.sum());
+        out.put("evictions", evictions.sum());
+        out.put("fetchRejections", fetchRejections.sum());
+        out.put("inFlight", inFlight.size());
+        out.put("knownSources", sources.size());
+        out.put("baseUrl", publicBaseUrl.isEmpty() ? serverBaseUrl : publicBaseUrl);
+        return out;
+    }
+
+    /**
+     * Un solo download per chiave: chi arriva mentre è in corso riceve lo stesso future.
+     * Con il pool pieno il download non parte sul thread del chiamante: il future fallisce e il
+     * prossimo {@link #get} riprova.
+     */
+    private CompletableFuture<CachedMedia> fetch(String key) {
+        String url = sources.get(key);
+        if (url == null) {
+            return null;
+        }
+        CompletableFuture<CachedMedia> created = new CompletableFuture<>();
+        CompletableFuture<CachedMedia> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            mediaFetchExecutor.execute(() -> download(key, url, created));
+        } catch (RejectedExecutionException e) {
+            fetchRejections.increment();
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    private void download(String key, String url, CompletableFuture<CachedMedia> result) {
+        Path tmp = dir.resolve(key + ".part");
+        try {
+            String contentType = restTemplate.execute(URI.create(url), HttpMethod.GET,
+                    request -> request.getHeaders().setAccept(List.of(MediaType.ALL)),
+                    response -> {
+                        try (InputStream in = response.getBody(); OutputStream out = Files.newOutputStream(tmp)) {
+                            copyBounded(in, out);
+                        }
+                        MediaType type = response.getHeaders().getContentType();
+                        return type == null ? MediaType.APPLICATION_OCTET_STREAM_VALUE : type.toString();
+                    });
+
+            Path file = dir.resolve(key + ".bin");
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            long size = Files.size(file);
+            CachedMedia media = new CachedMedia(key, file, contentType, size,
+                    "\"" + key.substring(0, 16) + "-" + size + "\"", url, System.currentTimeMillis());
+            writeMeta(media);
+
+            CachedMedia previous = index.put(key, media);
+            totalBytes.addAndGet(size - (previous == null ? 0 : previous.size));
+            downloads.increment();
+            downloadedBytes.add(size);
+            evictIfNeeded();
+            result.complete(media);
+        } catch (Exception e) {
+            downloadFailures.increment();
+            sources.remove(key);
+            deleteQuietly(tmp);
+            result.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, result);
+        }
+    }
+
+    private void copyBounded(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[16 * 1024];
+        long copied = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            copied += read;
+            if (copied > maxItemBytes) {
+                throw new IOException("Media oltre " + maxItemBytes + " byte");
+            }
+            out.write(buffer, 0, read);
+        }
+    }
+
+    private void evictIfNeeded() {
+        if (totalBytes.get() <= maxBytes) {
+            return;
+        }
+        synchronized (this) {
+            List<CachedMedia> byAge = index.values().stream()
+                    .sorted(Comparator.comparingLong(CachedMedia::lastAccess))
+                    .toList();
+            for (CachedMedia media : byAge) {
+                if (totalBytes.get() <= maxBytes) {
+                    break;
+                }
+                remove(media.key);
+                evictions.increment();
+            }
+        }
+    }
+
+    private void remove(String key) {
+        CachedMedia removed = index.remove(key);
+        if (removed != null) {
+            totalBytes.addAndGet(-removed.size);
+            deleteQuietly(removed.file);
+            deleteQuietly(dir.resolve(key + ".meta"));
+        }
+    }
+
+    private void writeMeta(CachedMedia media) throws IOException {
+        Properties meta = new Properties();
+        meta.setProperty("url", media.sourceUrl);
+        meta.setProperty("contentType", media.contentType);
+        meta.setProperty("size", Long.toString(media.size));
+        meta.setProperty("etag", media.etag);
+        try (Writer writer = Files.newBufferedWriter(dir.resolve(media.key + ".meta"), StandardCharsets.UTF_8)) {
+            meta.store(writer, null);
+        }
+    }
+
+    private void loadIndex() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(path -> path.getFileName().toString().endsWith(".meta")).forEach(metaFile -> {
+                String name = metaFile.getFileName().toString();
+                String key = name.substring(0, name.length() - ".meta".length());
+                Path file = dir.resolve(key + ".bin");
+                try (Reader reader = Files.newBufferedReader(metaFile, StandardCharsets.UTF_8)) {
+                    Properties meta = new Properties();
+                    meta.load(reader);
+                    if (!Files.exists(file)) {
+                        deleteQuietly(metaFile);
+                        return;
+                    }
+                    CachedMedia media = new CachedMedia(key, file, meta.getProperty("contentType"),
+                            Files.size(file), meta.getProperty("etag"), meta.getProperty("url"),
+                            Files.getLastModifiedTime(file).toMillis());
+                    index.put(key, media);
+                    sources.put(key, media.sourceUrl);
+                    totalBytes.addAndGet(media.size);
+                } catch (IOException | RuntimeException e) {
+                    deleteQuietly(metaFile);
+                    deleteQuietly(file);
+                }
+            });
+        }
+        evictIfNeeded();
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.pub_game_be.service;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 🤖 Chiamate chat-completions a Groq dietro un circuit breaker: con Groq giù o lento
+ * si smette di pagare il timeout a ogni round finché una chiamata di prova non riesce.
+ */
+@Service
+public class GroqClient {
+
+    private static final String GROQ_API_URL = "https://api.groq.com/openai/v1/chat/completions";
+
+    @Value("${groq.api.key}")
+    private String apiKey;
+
+    @Value("${groq.api.model}")
+    private String model;
+
+    private final RestTemplate restTemplate;
+    private final CircuitBreaker circuitBreaker;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalLatencyMs = new LongAdder();
+    private final AtomicLong lastLatencyMs = new AtomicLong();
+
+    public GroqClient(RestTemplate restTemplate,
+            @Value("${groq.circuit-breaker.failure-threshold:3}") int failureThreshold,
+            @Value("${groq.circuit-breaker.open-ms:30000}") long openMs) {
+        this.restTemplate = restTemplate;
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openMs);
+    }
+
+    public boolean isAvailable() {
+        return apiKey != null && !apiKey.isBlank() && circuitBreaker.allowsRequest();
+    }
+
+    /**
+     * ⏱️ Il chiamante ha smesso di aspettare: conta come fallimento, così un Groq che resta appeso
+     * fino al read timeout apre comunque il circuito.
+     */
+    public void recordBudgetOverrun() {
+        failures.increment();
+        circuitBreaker.onFailure();
+    }
+
+    /**
+     * Restituisce il campo message.content della prima choice.
+     */
+    public String complete(String prompt, double temperature, boolean forceJsonObject) {
+        Map<String, Object> request = buildRequest(prompt, temperature, forceJsonObject);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(apiKey);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(request, headers);
+
+        ResponseEntity<String> response = guarded(
+                () -> restTemplate.postForEntity(GROQ_API_URL, entity, String.class));
+
+        return parseJsonResponse(response.getBody());
+    }
+
+    /**
+     * 🌊 Come {@link #complete} ma con {@code stream: true}: ogni delta viene passato a {@code onDelta}
+     * appena arriva, il contenuto completo è restituito a fine stream.
+     */
+    public String completeStreaming(String prompt, double temperature, Consumer<String> onDelta) {
+        Map<String, Object> request = buildRequest(prompt, temperature, false);
+        request.put("stream", true);
+        byte[] body = new JSONObject(request).toString().getBytes(StandardCharsets.UTF_8);
+
+        return guarded(() -> restTemplate.execute(GROQ_API_URL, HttpMethod.POST,
+                httpRequest -> {
+                    httpRequest.getHeaders().setBearerAuth(apiKey);
+                    httpRequest.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                    httpRequest.getHeaders().setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+                    httpRequest.getBody().write(body);
+                },
+                httpResponse -> {
+                    StringBuilder content = new StringBuilder();
+                    BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(httpResponse.getBody(), StandardCharsets.UTF_8));
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (!line.startsWith("data:")) {
+                            continue;
+                        }
+                        String data = line.substring(5).trim();
+                        if ("[DONE]".equals(data)) {
+                            break;
+                        }
+                        String delta = parseStreamDelta(data);
+                        if (delta != null && !delta.isEmpty()) {
+                            content.append(delta);
+                            onDelta.accept(delta);
+                        }
+                    }
+                    return content.toString();
+                }));
+    }
+
+    public Map<String, Object> stats() {
+        long callCount = calls.sum();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("calls", callCount);
+        out.put("failures", failures.sum());
+        out.put("lastLatencyMs", lastLatencyMs.get());
+        out.put("avgLatencyMs", callCount == 0 ? 0 : totalLatencyMs.sum() / callCount);
+        out.put("circuitBreaker", circuitBreaker.stats());
+        return out;
+    }
+
+    private Map<String, Object> buildRequest(String prompt, double temperature, boolean forceJsonObject) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("model", model);
+        request.put("messages", List.of(Map.of("role", "user", "content", prompt)));
+        request.put("temperature", temperature);
+        if (forceJsonObject) {
+            request.put("response_format", Map.of("type", "json_object"));
+        }
+        return request;
+    }
+
+    private <T> T guarded(Supplier<T> call) {
+        if (apiKey == null || apiKey.isBlank()) {
+            throw new IllegalStateException("Chiave Groq non configurata");
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            throw new IllegalStateException("Circuito Groq aperto");
+        }
+
+        calls.increment();
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            circuitBreaker.onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            failures.increment();
+            circuitBreaker.onFailure();
+            throw e;
+        } finally {
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            lastLatencyMs.set(elapsedMs);
+            totalLatencyMs.add(elapsedMs);
+        }
+    }
+
+    private String parseStreamDelta(String data) {
+        JSONArray choices = new JSONObject(data).optJSONArray("choices");
+        if (choices == null || choices.isEmpty()) {
+            return null;
+        }
+        JSONObject delta = choices.getJSONObject(0).optJSONObject("delta");
+        return delta == null ? null : delta.optString("content", null);
+    }
+
+    private String parseJsonResponse(String responseBody) {
+        JSONObject json = new JSONObject(responseBody);
+        return json.getJSONArray("choices")
+                .getJSONObject(0)
+                .getJSONObject("message")
+                .getString("content");
+    }
+}
@@ -0,0 +1,233 @@
+package com.pub_game_be.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * 🖼️ Cerca la foto di un personaggio su TMDB e Wikipedia in parallelo: vince il primo URL valido entro
+ * la deadline. Le ricerche che perdono non vengono interrotte, così finiscono comunque nella cache di TMDB.
+ * I provider partono in ordine di punteggio (win rate / latenza media), così il più rapido
+ * nella nostra zona viene servito per primo anche quando il pool è sotto carico.
+ * Pexels è una ricerca di foto stock e può restituire la persona sbagliata: viene provato solo dopo,
+ * se entrambi non hanno trovato niente e la deadline non è scaduta.
+ */
+@Service
+public class ImageResolver {
+
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final Executor imageLookupExecutor;
+    private final long deadlineMs;
+    private final List<Provider> providers = new ArrayList<>();
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder resolved = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder fallbackWins = new LongAdder();
+
+    public ImageResolver(TMDBImageService tmdbImageService,
+            CelebrityImageService celebrityImageService,
+            @Qualifier("imageLookupExecutor") Executor imageLookupExecutor,
+            @Value("${images.resolver.deadline-ms:4000}") long deadlineMs,
+            @Value("${images.resolver.providers:tmdb,wikipedia,pexels}") String enabledProviders) {
+        this.imageLookupExecutor = imageLookupExecutor;
+        this.deadlineMs = deadlineMs;
+
+        List<String> enabled = Arrays.stream(enabledProviders.split(","))
+                .map(name -> name.trim().toLowerCase(Locale.ROOT))
+                .toList();
+        if (enabled.contains("tmdb")) {
+            providers.add(new Provider("tmdb", false, tmdbImageService::isConfigured,
+                    tmdbImageService::getCelebrityImageUrl));
+        }
+        if (enabled.contains("wikipedia")) {
+            providers.add(new Provider("wikipedia", false, () -> true, celebrityImageService::findWikipediaImageUrl));
+        }
+        if (enabled.contains("pexels")) {
+            providers.add(new Provider("pexels", true, () -> true, celebrityImageService::findPexelsImageUrl));
+        }
+    }
+
+    /**
+     * URL della prima foto trovata, o null se nessun provider risponde entro la deadline.
+     */
+    public String resolve(String celebrityName) {
+        if (celebrityName == null || celebrityName.isBlank()) {
+            return null;
+        }
+        lookups.increment();
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+        String url = race(celebrityName, enabledProviders(false), deadline);
+        if (url == null) {
+            for (Provider fallback : enabledProviders(true)) {
+                if (deadline - System.nanoTime() <= 0) {
+                    break;
+                }
+                url = race(celebrityName, List.of(fallback), deadline);
+                if (url != null) {
+                    fallbackWins.increment();
+                    break;
+                }
+            }
+        }
+        if (url != null) {
+            resolved.increment();
+        }
+        return url;
+    }
+
+    /**
+     * Primo URL fra {@code candidates}, o null se tutti mancano o scade la deadline.
+     */
+    private String race(String celebrityName, List<Provider> candidates, long deadline) {
+        ExecutorCompletionService<Result> completion = new ExecutorCompletionService<>(imageLookupExecutor);
+        List<Future<Result>> futures = new ArrayList<>();
+        for (Provider provider : candidates) {
+            try {
+                futures.add(completion.submit(() -> provider.lookup(celebrityName)));
+            } catch (RejectedExecutionException e) {
+                provider.rejected.increment();
+            }
+        }
+
+        try {
+            for (int pending = futures.size(); pending > 0; pending--) {
+                long remaining = deadline - System.nanoTime();
+                Future<Result> done = remaining > 0 ? completion.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                if (done == null) {
+                    timeouts.increment();
+                    return null;
+                }
+                Result result = getQuietly(done);
+                if (result != null && result.url != null) {
+                    result.provider.wins.increment();
+                    return result.url;
+                }
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private List<Provider> enabledProviders(boolean fallback) {
+        return providers.stream()
+                .filter(provider -> provider.fallback == fallback && provider.enabled.getAsBoolean())
+                .sorted(Comparator.comparingDouble(Provider::score).reversed())
+                .toList();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("lookups", lookups.sum());
+        out.put("resolved", resolved.sum());
+        out.put("timeouts", timeouts.sum());
+        out.put("fallbackWins", fallbackWins.sum());
+        out.put("deadlineMs", deadlineMs);
+
+        Map<String, Object> perProvider = new LinkedHashMap<>();
+        providers.stream()
+                .sorted(Comparator.comparingDouble(Provider::score).reversed())
+                .forEach(provider -> perProvider.put(provider.name, provider.stats()));
+        out.put("providers", perProvider);
+        return out;
+    }
+
+    private Result getQuietly(Future<Result> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private record Result(Provider provider, String url) {
+    }
+
+    private static final class Provider {
+        private final String name;
+        private final boolean fallback;
+        private final BooleanSupplier enabled;
+        private final Function<String, String> lookup;
+
+        private final LongAdder attempts = new LongAdder();
+        private final LongAdder found = new LongAdder();
+        private final LongAdder wins = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private volatile double ewmaLatencyMs;
+
+        private Provider(String name, boolean fallback, BooleanSupplier enabled, Function<String, String> lookup) {
+            this.name = name;
+            this.fallback = fallback;
+            this.enabled = enabled;
+            this.lookup = lookup;
+        }
+
+        private Result lookup(String celebrityName) {
+            attempts.increment();
+            long start = System.nanoTime();
+            String url = lookup.apply(celebrityName);
+            recordLatency((System.nanoTime() - start) / 1_000_000.0);
+            if (url != null && !url.isBlank()) {
+                found.increment();
+                return new Result(this, url);
+            }
+            return new Result(this, null);
+        }
+
+        private synchronized void recordLatency(double latencyMs) {
+            ewmaLatencyMs = ewmaLatencyMs == 0 ? latencyMs : EWMA_ALPHA * latencyMs + (1 - EWMA_ALPHA) * ewmaLatencyMs;
+        }
+
+        private double winRate() {
+            long attemptCount = attempts.sum();
+            return attemptCount == 0 ? 0.0 : (double) wins.sum() / attemptCount;
+        }
+
+        /**
+         * Più vince e più è rapido, prima parte. I provider mai provati hanno la precedenza
+         * così ognuno accumula qualche misura.
+         */
+        private double score() {
+            if (attempts.sum() == 0) {
+                return Double.MAX_VALUE;
+            }
+            return (winRate() + 0.05) / Math.max(ewmaLatencyMs, 1.0);
+        }
+
+        private Map<String, Object> stats() {
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("attempts", attempts.sum());
+            out.put("found", found.sum());
+            out.put("wins", wins.sum());
+            out.put("winRate", winRate());
+            out.put("ewmaLatencyMs", Math.round(ewmaLatencyMs));
+            out.put("fallback", fallback);
+            out.put("rejected", rejected.sum());
+            return out;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.pub_game_be.service;
+
+import java.util.function.Consumer;
+
+/**
+ * 🧩 Estrattore JSON incrementale per lo stream dei token: segue solo le stringhe di primo livello
+ * e notifica il valore di {@code fieldName} appena le virgolette di chiusura arrivano,
+ * senza aspettare il resto dell'oggetto. Il testo fuori dal primo oggetto (markdown, prosa) è ignorato.
+ * Un escape unicode con cifre non esadecimali rende lo stream non valido: l'estrattore si ferma
+ * senza notificare niente, invece di passare avanti un carattere inventato.
+ */
+public class IncrementalJsonExtractor {
+
+    private final String fieldName;
+    private final Consumer<String> onField;
+
+    private final StringBuilder buffer = new StringBuilder();
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+    private int unicodeDigits = -1;
+    private int unicodeValue;
+    private boolean expectingValue;
+    private String lastKey;
+    private boolean fired;
+    private boolean failed;
+
+    public IncrementalJsonExtractor(String fieldName, Consumer<String> onField) {
+        this.fieldName = fieldName;
+        this.onField = onField;
+    }
+
+    public void feed(CharSequence chunk) {
+        if (fired || failed || chunk == null) {
+            return;
+        }
+        for (int i = 0; i < chunk.length() && !fired && !failed; i++) {
+            accept(chunk.charAt(i));
+        }
+    }
+
+    /**
+     * True se lo stream conteneva un escape non valido.
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    private void accept(char c) {
+        if (inString) {
+            acceptStringChar(c);
+            return;
+        }
+
+        switch (c) {
+            case '{', '[' -> depth++;
+            case '}', ']' -> depth = Math.max(0, depth - 1);
+            case ':' -> {
+                if (depth == 1) {
+                    expectingValue = true;
+                }
+            }
+            case ',' -> {
+                if (depth == 1) {
+                    expectingValue = false;
+                }
+            }
+            case '"' -> {
+                if (depth >= 1) {
+                    inString = true;
+                    buffer.setLength(0);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void acceptStringChar(char c) {
+        boolean capture = depth == 1;
+
+        if (unicodeDigits >= 0) {
+            int digit = Character.digit(c, 16);
+            if (digit < 0) {
+                failed = true;
+                return;
+            }
+            unicodeValue = (unicodeValue << 4) + digit;
+            if (++unicodeDigits == 4) {
+                if (capture) {
+                    buffer.append((char) unicodeValue);
+                }
+                unicodeDigits = -1;
+            }
+            return;
+        }
+
+        if (escaped) {
+            escaped = false;
+            if (c == 'u') {
+                unicodeDigits = 0;
+                unicodeValue = 0;
+            } else if (capture) {
+                buffer.append(switch (c) {
+                    case 'n' -> '\n';
+                    case 't' -> '\t';
+                    case 'r' -> '\r';
+                    case 'b' -> '\b';
+                    case 'f' -> '\f';
+                    default -> c;
+                });
+            }
+            return;
+        }
+
+        if (c == '\\') {
+            escaped = true;
+        } else if (c == '"') {
+            inString = false;
+            if (capture) {
+                onStringClosed();
+            }
+        } else if (capture) {
+            buffer.append(c);
+        }
+    }
+
+    private void onStringClosed() {
+        if (!expectingValue) {
+            lastKey = buffer.toString();
+            return;
+        }
+        expectingValue = false;
+        if (fieldName.equals(lastKey)) {
+            fired = true;
+            onField.accept(buffer.toString());
+        }
+    }
+}
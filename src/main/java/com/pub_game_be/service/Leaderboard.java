@@ -0,0 +1,106 @@
+package com.pub_game_be.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 🏆 Classifica di una partita. Ogni giocatore ha un id intero (indice negli array di nomi e chiavi),
+ * i punti sono {@code long} e l'ordine è tenuto da un TreeSet di chiavi immutabili: un'assegnazione
+ * toglie la vecchia chiave e inserisce la nuova, O(log n), e la top-K è la testa del set, O(K).
+ * A pari punti sta davanti chi ci è arrivato prima.
+ */
+public class Leaderboard {
+
+    private static final Comparator<Key> ORDER = Comparator.comparingLong(Key::points).reversed()
+            .thenComparingLong(Key::reachedAt)
+            .thenComparingInt(Key::playerId);
+
+    private final int gameId;
+
+    private final Map<String, Integer> playerIds = new HashMap<>();
+    private String[] names = new String[16];
+    private Key[] keys = new Key[16];
+    private final TreeSet<Key> ranking = new TreeSet<>(ORDER);
+    private long sequence;
+    private boolean dirty;
+    private volatile long lastActivity = System.currentTimeMillis();
+
+    public Leaderboard(int gameId) {
+        this.gameId = gameId;
+    }
+
+    private record Key(long points, long reachedAt, int playerId) {
+    }
+
+    public record Standing(int rank, String playerName, long points) {
+    }
+
+    public int getGameId() {
+        return gameId;
+    }
+
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    /**
+     * Somma {@code points} al giocatore (registrandolo se nuovo) e restituisce il suo totale.
+     */
+    public synchronized long award(String playerName, long points) {
+        lastActivity = System.currentTimeMillis();
+        int id = playerIds.computeIfAbsent(playerName, this::register);
+        Key old = keys[id];
+        if (points == 0 && old != null) {
+            return old.points();
+        }
+
+        long total = (old == null ? 0 : old.points()) + points;
+        if (old != null) {
+            ranking.remove(old);
+        }
+        Key updated = new Key(total, sequence++, id);
+        keys[id] = updated;
+        ranking.add(updated);
+        dirty = true;
+        return total;
+    }
+
+    public synchronized List<Standing> top(int k) {
+        List<Standing> out = new ArrayList<>(Math.min(k, ranking.size()));
+        Iterator<Key> it = ranking.iterator();
+        while (it.hasNext() && out.size() < k) {
+            Key key = it.next();
+            out.add(new Standing(out.size() + 1, names[key.playerId()], key.points()));
+        }
+        return out;
+    }
+
+    public synchronized int size() {
+        return ranking.size();
+    }
+
+    /**
+     * True una sola volta per ogni gruppo di assegnazioni dall'ultimo push.
+     */
+    public synchronized boolean drainDirty() {
+        boolean wasDirty = dirty;
+        dirty = false;
+        return wasDirty;
+    }
+
+    private int register(String playerName) {
+        int id = playerIds.size();
+        if (id == names.length) {
+            names = Arrays.copyOf(names, id * 2);
+            keys = Arrays.copyOf(keys, id * 2);
+        }
+        names[id] = playerName;
+        return id;
+    }
+}
@@ -0,0 +1,125 @@
+package com.pub_game_be.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🏆 Punteggi delle partite, una {@link Leaderboard} per partita. I punti arrivano dai round a risposta
+ * (alla chiusura, da {@link AnswerTallyService}) e dagli arrivi della Scream Race; la top-K esce su
+ * {@code /topic/game/{id}/leaderboard} al massimo una volta ogni {@code game.leaderboard.push-ms}.
+ */
+@Service
+public class LeaderboardService {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final int topK;
+    private final long answerBasePoints;
+    private final long answerSpeedBonus;
+    private final long answerWindowMs;
+    private final long idleEvictMs;
+
+    private final Map<Integer, Leaderboard> leaderboards = new ConcurrentHashMap<>();
+
+    private final LongAdder awards = new LongAdder();
+    private final LongAdder pushes = new LongAdder();
+
+    public LeaderboardService(SimpMessagingTemplate messagingTemplate,
+            @Value("${game.leaderboard.top-k:10}") int topK,
+            @Value("${game.scoring.answer-base-points:500}") long answerBasePoints,
+            @Value("${game.scoring.answer-speed-bonus:500}") long answerSpeedBonus,
+            @Value("${game.scoring.answer-window-ms:20000}") long answerWindowMs,
+            @Value("${game.leaderboard.idle-evict-ms:21600000}") long idleEvictMs) {
+        this.messagingTemplate = messagingTemplate;
+        this.topK = topK;
+        this.answerBasePoints = answerBasePoints;
+        this.answerSpeedBonus = answerSpeedBonus;
+        this.answerWindowMs = answerWindowMs;
+        this.idleEvictMs = idleEvictMs;
+    }
+
+    public Leaderboard leaderboard(int gameId) {
+        return leaderboards.computeIfAbsent(gameId, Leaderboard::new);
+    }
+
+    public long award(int gameId, String playerName, long points) {
+        awards.increment();
+        return leaderboard(gameId).award(playerName, points);
+    }
+
+    /**
+     * 🎯 Risposta corretta: punti base più un bonus velocità che scende a zero in {@code answer-window-ms}.
+     */
+    public long pointsForAnswer(long elapsedMs) {
+        long remaining = Math.max(0, answerWindowMs - elapsedMs);
+        return answerBasePoints + (answerWindowMs == 0 ? 0 : answerSpeedBonus * remaining / answerWindowMs);
+    }
+
+    /**
+     * 📋 Snapshot per REST e per il push: top {@code limit} e numero di giocatori in classifica.
+     */
+    public Map<String, Object> snapshot(int gameId, int limit) {
+        Leaderboard leaderboard = leaderboards.get(gameId);
+        List<Map<String, Object>> top = new ArrayList<>();
+        if (leaderboard != null) {
+            for (Leaderboard.Standing standing : leaderboard.top(limit)) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("rank", standing.rank());
+                entry.put("playerName", standing.playerName());
+                entry.put("points", standing.points());
+                top.add(entry);
+            }
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("gameId", gameId);
+        out.put("players", leaderboard == null ? 0 : leaderboard.size());
+        out.put("top", top);
+        return out;
+    }
+
+    public Map<String, Object> snapshot(int gameId) {
+        return snapshot(gameId, topK);
+    }
+
+    @Scheduled(fixedRateString = "${game.leaderboard.push-ms:1000}")
+    public void pushLeaderboards() {
+        for (Leaderboard leaderboard : leaderboards.values()) {
+            if (!leaderboard.drainDirty()) {
+                continue;
+            }
+
+            Map<String, Object> leaderboardMsg = new HashMap<>(snapshot(leaderboard.getGameId()));
+            leaderboardMsg.put("action", "LEADERBOARD");
+
+            messagingTemplate.convertAndSend("/topic/game/" + leaderboard.getGameId() + "/leaderboard",
+                    Optional.of(leaderboardMsg));
+            pushes.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${game.leaderboard.evict-check-ms:300000}")
+    public void evictIdleLeaderboards() {
+        long cutoff = System.currentTimeMillis() - idleEvictMs;
+        leaderboards.values().removeIf(leaderboard -> leaderboard.getLastActivity() < cutoff);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("activeGames", leaderboards.size());
+        out.put("topK", topK);
+        out.put("awards", awards.sum());
+        out.put("pushes", pushes.sum());
+        return out;
+    }
+}
@@ -0,0 +1,26 @@
+package com.pub_game_be.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 🎯 Campionamento dei log sui percorsi caldi: conta ogni evento e lascia passare solo il primo di ogni
+ * blocco di {@code every}. Nessuna allocazione per evento; il totale va nel messaggio campionato, così
+ * dal log si capisce comunque quanti eventi ci sono stati.
+ */
+public class LogSampler {
+
+    private final long every;
+    private final AtomicLong count = new AtomicLong();
+
+    public LogSampler(long every) {
+        this.every = Math.max(1, every);
+    }
+
+    public boolean sample() {
+        return (count.getAndIncrement() % every) == 0;
+    }
+
+    public long count() {
+        return count.get();
+    }
+}
@@ -0,0 +1,462 @@
+package com.pub_game_be.service;
+
+import com.pub_game_be.domain.enums.QuestionType;
+import com.pub_game_be.domain.category.Category;
+import com.pub_game_be.domain.question.Question;
+import com.pub_game_be.repository.CategoryRepository;
+import com.pub_game_be.repository.QuestionBankRow;
+import com.pub_game_be.repository.QuestionRepository;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 🏦 Banca delle domande del database, tenuta in memoria. Si carica all'avvio a pagine keyset e poi resta
+ * allineata da {@link QuestionBankListener} (insert, update e delete dopo il commit), quindi scegliere
+ * categoria e domanda di un round non costa SELECT: la domanda pescata si carica per id, di norma dalle
+ * regioni "question" e "question.options" della cache di secondo livello.
+ * Finché la banca non è caricata (o se è vuota) le pescate ripiegano sul campionamento per id di
+ * {@link QuestionRepository}, senza aspettare il caricamento.
+ * <p>
+ * Di ogni domanda restano solo l'id e la chiave (categoria, difficoltà, {@link QuestionType}), con le chiavi
+ * condivise: anche dopo un import massivo la banca non tiene testi, payload né opzioni.
+ * L'indice è un array di id per ogni chiave, solo in append.
+ * Ogni partita pesca da un {@link Deck} mescolato per filtro, senza reinserimento: la stessa domanda
+ * non esce due volte finché il mazzo non è finito. Le domande aggiunte a partita in corso entrano nel
+ * mazzo in una posizione a caso fra quelle non ancora pescate.
+ */
+@Service
+public class QuestionBank {
+
+    private static final Logger log = LoggerFactory.getLogger(QuestionBank.class);
+
+    private static final int LOAD_PAGE = 1000;
+    private static final long NO_QUESTION = -1;
+
+    private final QuestionRepository questionRepository;
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long deckIdleEvictMs;
+
+    private final Map<Long, Key> questions = new ConcurrentHashMap<>();
+    private final Map<Key, Key> sharedKeys = new ConcurrentHashMap<>();
+    private final Map<Key, IdList> index = new ConcurrentHashMap<>();
+    private final Map<String, Long> categoryIds = new ConcurrentHashMap<>();
+    private final Map<Integer, Map<Filter, Deck>> decks = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile boolean loaded;
+    private volatile long loadMs;
+
+    private final LongAdder draws = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder recycles = new LongAdder();
+    private final LongAdder staleSkips = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder databaseDraws = new LongAdder();
+
+    public QuestionBank(QuestionRepository questionRepository,
+            CategoryRepository categoryRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${game.question-bank.deck-idle-evict-ms:21600000}") long deckIdleEvictMs) {
+        this.questionRepository = questionRepository;
+        this.categoryRepository = categoryRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.deckIdleEvictMs = deckIdleEvictMs;
+    }
+
+    /**
+     * Chiave dell'indice: difficoltà sempre in maiuscolo, come arriva dal parametro del round.
+     */
+    private record Key(Long categoryId, String difficulty, QuestionType type) {
+    }
+
+    /**
+     * Filtro di una pescata; un campo null vale "qualsiasi".
+     */
+    private record Filter(Long categoryId, String difficulty, QuestionType type) {
+        boolean matches(Key key) {
+            return key != null
+                    && (categoryId == null || categoryId.equals(key.categoryId()))
+                    && (difficulty == null || difficulty.equals(key.difficulty()))
+                    && (type == null || type == key.type());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        ensureLoaded();
+    }
+
+    /**
+     * 🎴 Prossima domanda del mazzo della partita per il filtro dato (null = qualsiasi).
+     * Finito il mazzo, viene rimescolato e si ricomincia.
+     * <p>
+     * Senza categoria se ne sceglie prima una a caso fra quelle con domande per il filtro, poi la domanda
+     * dal suo mazzo: ogni categoria esce con la stessa probabilità, anche se una ha dieci volte le domande
+     * di un'altra (come quando si pescava prima la categoria e poi la domanda dal database).
+     */
+    public Optional<Question> draw(int gameId, Long categoryId, String difficulty, QuestionType type) {
+        if (!isReady()) {
+            return drawFromDatabase(categoryId, difficulty, type);
+        }
+
+        Map<Filter, Deck> gameDecks = decks.computeIfAbsent(gameId, id -> new ConcurrentHashMap<>());
+        List<Long> candidates = categoryId != null ? new ArrayList<>(List.of(categoryId))
+                : categoriesFor(new Filter(null, normalize(difficulty), type));
+        while (!candidates.isEmpty()) {
+            Long picked = candidates.remove(ThreadLocalRandom.current().nextInt(candidates.size()));
+            Deck deck = gameDecks.computeIfAbsent(new Filter(picked, normalize(difficulty), type), Deck::new);
+            long id;
+            while ((id = deck.draw()) != NO_QUESTION) {
+                Optional<Question> question = load(id, deck.filter);
+                if (question.isPresent()) {
+                    draws.increment();
+                    return question;
+                }
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * 🎲 Domanda a caso per nome di categoria e tipo, senza mazzo: è il ripiego quando Groq non risponde.
+     */
+    public Optional<Question> random(String categoryName, QuestionType type) {
+        if (!isReady()) {
+            return categoryName == null ? Optional.empty()
+                    : categoryRepository.findFirstByNameIgnoreCase(categoryName)
+                            .flatMap(category -> drawFromDatabase(category.getId(), null, type));
+        }
+        Long categoryId = categoryName == null ? null : categoryIds.get(categoryName.toLowerCase());
+        if (categoryId == null) {
+            return Optional.empty();
+        }
+
+        Filter filter = new Filter(categoryId, null, type);
+        List<IdList> lists = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<Key, IdList> entry : index.entrySet()) {
+            if (filter.matches(entry.getKey())) {
+                lists.add(entry.getValue());
+                total += entry.getValue().size();
+            }
+        }
+
+        for (int attempt = 0; attempt < 3 && total > 0; attempt++) {
+            int pick = ThreadLocalRandom.current().nextInt(total);
+            for (IdList list : lists) {
+                int size = list.size();
+                if (pick < size) {
+                    long id = list.get(pick);
+                    if (filter.matches(questions.get(id))) {
+                        Optional<Question> question = load(id, filter);
+                        if (question.isPresent()) {
+                            return question;
+                        }
+                    } else {
+                        staleSkips.increment();
+                    }
+                    break;
+                }
+                pick -= size;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Caricata e non vuota: prima di allora risponde il database.
+     */
+    public boolean isReady() {
+        return loaded && !questions.isEmpty();
+    }
+
+    /**
+     * Inserita o modificata dopo il commit. Se cambia chiave resta anche nella lista vecchia:
+     * le pescate controllano la chiave corrente e la saltano.
+     */
+    void upsert(Question question) {
+        if (question.getId() != null) {
+            Long categoryId = question.getCategory() == null ? null : question.getCategory().getId();
+            String categoryName = question.getCategory() == null ? null : question.getCategory().getName();
+            index(question.getId(), categoryId, categoryName, question.getDifficulty(), question.getType());
+            updates.increment();
+        }
+    }
+
+    void remove(Question question) {
+        if (question.getId() != null && questions.remove(question.getId()) != null) {
+            updates.increment();
+        }
+    }
+
+    private void index(Long id, Long categoryId, String categoryName, String difficulty, QuestionType type) {
+        Key key = sharedKeys.computeIfAbsent(new Key(categoryId, normalize(difficulty), type), k -> k);
+        Key previous = questions.put(id, key);
+        if (!key.equals(previous)) {
+            index.computeIfAbsent(key, k -> new IdList()).add(id);
+        }
+        if (categoryName != null && categoryId != null) {
+            categoryIds.put(categoryName.toLowerCase(), categoryId);
+        }
+        version.incrementAndGet();
+    }
+
+    @Scheduled(fixedDelayString = "${game.question-bank.evict-check-ms:300000}")
+    public void evictIdleDecks() {
+        long cutoff = System.currentTimeMillis() - deckIdleEvictMs;
+        decks.values().forEach(gameDecks -> gameDecks.values().removeIf(deck -> deck.lastActivity < cutoff));
+        decks.values().removeIf(Map::isEmpty);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("loaded", loaded);
+        out.put("loadMs", loadMs);
+        out.put("questions", questions.size());
+        out.put("keys", index.size());
+        out.put("categories", categoryIds.size());
+        out.put("gamesWithDecks", decks.size());
+        out.put("draws", draws.sum());
+        out.put("misses", misses.sum());
+        out.put("deckRecycles", recycles.sum());
+        out.put("staleSkips", staleSkips.sum());
+        out.put("listenerUpdates", updates.sum());
+        out.put("databaseDraws", databaseDraws.sum());
+        return out;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            long after = 0;
+            while (true) {
+                List<QuestionBankRow> page = questionRepository.findBankRowsAfter(after, Limit.of(LOAD_PAGE));
+                for (QuestionBankRow row : page) {
+                    index(row.id(), row.categoryId(), row.categoryName(), row.difficulty(), row.type());
+                }
+                if (page.size() < LOAD_PAGE) {
+                    break;
+                }
+                after = page.get(page.size() - 1).id();
+            }
+            loadMs = System.currentTimeMillis() - start;
+            loaded = true;
+            log.info("🏦 Banca domande caricata: {} domande, {} chiavi in {} ms", questions.size(), index.size(), loadMs);
+        }
+    }
+
+    /**
+     * Domanda pescata, con le opzioni pronte per il round che la pubblica. Se nel frattempo è stata
+     * cancellata o spostata senza passare dal listener (a mano sul database), la banca si corregge
+     * e la pescata passa alla successiva.
+     */
+    private Optional<Question> load(long id, Filter filter) {
+        Optional<Question> question = withOptions(() -> questionRepository.findById(id));
+        if (question.isEmpty()) {
+            questions.remove(id);
+            staleSkips.increment();
+            return Optional.empty();
+        }
+        if (!filter.matches(keyOf(question.get()))) {
+            upsert(question.get());
+            staleSkips.increment();
+            return Optional.empty();
+        }
+        return question;
+    }
+
+    private Optional<Question> withOptions(Supplier<Optional<Question>> query) {
+        return transactionTemplate.execute(status -> {
+            Optional<Question> question = query.get();
+            question.ifPresent(q -> Hibernate.initialize(q.getOptions()));
+            return question;
+        });
+    }
+
+    /**
+     * Categorie che hanno almeno un id per il filtro. Gli id possono essere vecchi (domanda spostata
+     * o cancellata): se il mazzo della categoria risulta vuoto, {@link #draw} passa alla successiva.
+     */
+    private List<Long> categoriesFor(Filter filter) {
+        List<Long> categories = new ArrayList<>();
+        for (Map.Entry<Key, IdList> entry : index.entrySet()) {
+            Long categoryId = entry.getKey().categoryId();
+            if (categoryId != null && entry.getValue().size() > 0 && filter.matches(entry.getKey())
+                    && !categories.contains(categoryId)) {
+                categories.add(categoryId);
+            }
+        }
+        return categories;
+    }
+
+    /**
+     * 🎲 Ripiego sul database (banca non ancora caricata): categoria a caso, poi domanda a caso per id
+     * dentro la categoria. Qualche tentativo, perché una categoria può non avere domande per il filtro.
+     */
+    private Optional<Question> drawFromDatabase(Long categoryId, String difficulty, QuestionType type) {
+        List<Long> candidates = new ArrayList<>();
+        if (categoryId != null) {
+            candidates.add(categoryId);
+        } else {
+            categoryRepository.findAll().stream().map(Category::getId).forEach(candidates::add);
+        }
+
+        for (int attempt = 0; attempt < 3 && !candidates.isEmpty(); attempt++) {
+            Long picked = candidates.remove(ThreadLocalRandom.current().nextInt(candidates.size()));
+            Optional<Question> question = withOptions(() -> type != null
+                    ? questionRepository.findRandomByCategoryAndType(picked, type.name())
+                    : questionRepository.findRandomByCategoryAndDifficulty(picked, difficulty));
+            if (question.isPresent()) {
+                databaseDraws.increment();
+                return question;
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    private static Key keyOf(Question question) {
+        Long categoryId = question.getCategory() == null ? null : question.getCategory().getId();
+        return new Key(categoryId, normalize(question.getDifficulty()), question.getType());
+    }
+
+    private static String normalize(String difficulty) {
+        return difficulty == null ? null : difficulty.toUpperCase();
+    }
+
+    /**
+     * Lista di id solo in append. Chi legge prende prima la dimensione (volatile) e poi l'array,
+     * che a quel punto contiene almeno quegli elementi.
+     */
+    private static final class IdList {
+        private volatile long[] ids = new long[8];
+        private volatile int size;
+
+        synchronized void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size] = id;
+            size = size + 1;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long get(int i) {
+            return ids[i];
+        }
+    }
+
+    /**
+     * 🎴 Mazzo di una partita per un filtro: id mescolati, {@code next} separa i pescati dal resto.
+     * Per ogni chiave ricorda quanti id ha già preso, così un aggiornamento della banca costa solo
+     * le domande nuove.
+     */
+    private final class Deck {
+        private final Filter filter;
+        private final Map<Key, Integer> seen = new HashMap<>();
+        private long[] order = new long[16];
+        private int size;
+        private int next;
+        private long seenVersion = -1;
+        private volatile long lastActivity = System.currentTimeMillis();
+
+        Deck(Filter filter) {
+            this.filter = filter;
+        }
+
+        /**
+         * Id della prossima domanda ancora valida per il filtro, o {@link #NO_QUESTION}.
+         */
+        synchronized long draw() {
+            lastActivity = System.currentTimeMillis();
+            long current = version.get();
+            if (current != seenVersion) {
+                absorbNewIds();
+                seenVersion = current;
+            }
+
+            for (int pass = 0; pass < 2; pass++) {
+                while (next < size) {
+                    long id = order[next++];
+                    if (filter.matches(questions.get(id))) {
+                        return id;
+                    }
+                    staleSkips.increment();
+                }
+                if (size == 0 || pass == 1) {
+                    break;
+                }
+                reshuffle();
+            }
+            return NO_QUESTION;
+        }
+
+        private void absorbNewIds() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (Map.Entry<Key, IdList> entry : index.entrySet()) {
+                if (!filter.matches(entry.getKey())) {
+                    continue;
+                }
+                IdList list = entry.getValue();
+                int from = seen.getOrDefault(entry.getKey(), 0);
+                int to = list.size();
+                for (int i = from; i < to; i++) {
+                    if (size == order.length) {
+                        order = Arrays.copyOf(order, size * 2);
+                    }
+                    // In fondo e poi scambiata con una posizione a caso fra le non pescate
+                    order[size] = list.get(i);
+                    int swap = next + random.nextInt(size - next + 1);
+                    long tmp = order[swap];
+                    order[swap] = order[size];
+                    order[size] = tmp;
+                    size++;
+                }
+                seen.put(entry.getKey(), to);
+            }
+        }
+
+        private void reshuffle() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = size - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                long tmp = order[i];
+                order[i] = order[j];
+                order[j] = tmp;
+            }
+            next = 0;
+            recycles.increment();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.pub_game_be.service;
+
+import com.pub_game_be.domain.question.Question;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 🔔 Entity listener di {@link Question}: tiene allineata la {@link QuestionBank}. Lo crea Hibernate
+ * tramite il container di Spring, la banca arriva da un ObjectProvider perché dipende a sua volta dal
+ * repository (e quindi dall'EntityManagerFactory che sta creando questo listener). Dentro una transazione
+ * l'aggiornamento aspetta il commit, così un rollback non lascia domande fantasma in memoria.
+ */
+public class QuestionBankListener {
+
+    private final ObjectProvider<QuestionBank> questionBank;
+
+    public QuestionBankListener(ObjectProvider<QuestionBank> questionBank) {
+        this.questionBank = questionBank;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Question question) {
+        afterCommit(() -> questionBank.ifAvailable(bank -> bank.upsert(question)));
+    }
+
+    @PostRemove
+    public void onRemove(Question question) {
+        afterCommit(() -> questionBank.ifAvailable(bank -> bank.remove(question)));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,29 +1,27 @@
 package com.pub_game_be.service;
 
+import com.pub_game_be.domain.enums.QuestionType;
+import com.pub_game_be.domain.question.Question;
+import com.pub_game_be.domain.question.QuestionOption;
 import com.pub_game_be.dto.MusicTrackDto;
+import org.hibernate.Hibernate;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 @Service
 public class QuestionGeneratorService {
 
-    private final String GROQ_API_URL = "https://api.groq.com/openai/v1/chat/completions";
-
-    @Value("${groq.api.key}")
-    private String apiKey;
-
-    @Value("${groq.api.model}")
-    private String model;
+    private static final Logger log = LoggerFactory.getLogger(QuestionGeneratorService.class);
 
     @Value("${groq.api.temperature}")
     private double defaultTemperature;
@@ -31,25 +29,77 @@ public class QuestionGeneratorService {
     @Value("${groq.api.image-blur-temperature}")
     private double imageBlurTemperature;
 
-    private final RestTemplate restTemplate;
-    private final TMDBImageService tmdbImageService;
+    @Value("${groq.api.streaming:false}")
+    private boolean streaming;
+
+    @Value("${groq.budget.default-ms:5000}")
+    private long defaultBudgetMs;
+
+    @Value("${groq.budget.image-blur-ms:8000}")
+    private long imageBlurBudgetMs;
+
+    private final GroqClient groqClient;
+    private final ImageResolver imageResolver;
+    private final DiskMediaCache diskMediaCache;
+    private final BlurPyramidService blurPyramidService;
     private final AppleMusicCuratorService appleMusicCuratorService;
-    private final com.pub_game_be.repository.CategoryRepository categoryRepository;
+    private final QuestionBank questionBank;
+    private final Executor llmExecutor;
+
+    private final LongAdder budgetOverruns = new LongAdder();
+    private final LogSampler budgetOverrunLog = new LogSampler(20);
+    private final LongAdder bankFallbacks = new LongAdder();
+    private final LongAdder catalogFallbacks = new LongAdder();
 
     private final Set<String> recentCelebrities = ConcurrentHashMap.newKeySet();
     private final int MAX_RECENT = 20;
-
-    public QuestionGeneratorService(RestTemplate restTemplate,
-            TMDBImageService tmdbImageService,
+    private static final int MAX_IMAGE_ATTEMPTS = 3;
+
+    private static final String[] ARENA_FALLBACKS = {
+            "{ \"question\": \"Quanto fa 5 + 5?\", \"options\": [\"8\", \"10\", \"12\", \"15\"], \"correctAnswer\": \"10\", \"difficulty\": \"easy\", \"category\": \"Matematica\" }",
+            "{ \"question\": \"Qual è la capitale d'Italia?\", \"options\": [\"Milano\", \"Roma\", \"Napoli\", \"Torino\"], \"correctAnswer\": \"Roma\", \"difficulty\": \"easy\", \"category\": \"Geografia\" }",
+            "{ \"question\": \"Qual è il fiume più lungo del mondo?\", \"options\": [\"Nilo\", \"Rio delle Amazzoni\", \"Gange\", \"Mississippi\"], \"correctAnswer\": \"Rio delle Amazzoni\", \"difficulty\": \"medium\", \"category\": \"Geografia\" }",
+            "{ \"question\": \"Chi ha dipinto la Gioconda?\", \"options\": [\"Michelangelo\", \"Raffaello\", \"Munch\", \"Leonardo Da Vinci\"], \"correctAnswer\": \"Leonardo Da Vinci\", \"difficulty\": \"easy\", \"category\": \"Arte\" }",
+            "{ \"question\": \"Qual è il pianeta più grande del sistema solare?\", \"options\": [\"Giove\", \"Saturno\", \"Terra\", \"Marte\"], \"correctAnswer\": \"Giove\", \"difficulty\": \"easy\", \"category\": \"Scienza\" }",
+            "{ \"question\": \"La Terra è piatta?\", \"options\": [\"VERO\", \"FALSO\"], \"correctAnswer\": \"FALSO\", \"difficulty\": \"easy\", \"category\": \"Geografia\" }",
+            "{ \"question\": \"L'acqua bolle a 100 gradi Celsius?\", \"options\": [\"VERO\", \"FALSO\"], \"correctAnswer\": \"VERO\", \"difficulty\": \"easy\", \"category\": \"Scienza\" }",
+            "{ \"question\": \"Roma è la capitale della Francia?\", \"options\": [\"VERO\", \"FALSO\"], \"correctAnswer\": \"FALSO\", \"difficulty\": \"easy\", \"category\": \"Geografia\" }",
+            "{ \"question\": \"Il sole è una stella?\", \"options\": [\"VERO\", \"FALSO\"], \"correctAnswer\": \"VERO\", \"difficulty\": \"easy\", \"category\": \"Scienza\" }",
+            "{ \"question\": \"In che anno è iniziata la Prima Guerra Mondiale?\", \"options\": [\"1914\", \"1918\", \"1939\", \"1945\"], \"correctAnswer\": \"1914\", \"difficulty\": \"medium\", \"category\": \"Storia\" }",
+            "{ \"question\": \"Chi ha scritto la Divina Commedia?\", \"options\": [\"Boccaccio\", \"Petrarca\", \"Dante Alighieri\", \"Machiavelli\"], \"correctAnswer\": \"Dante Alighieri\", \"difficulty\": \"easy\", \"category\": \"Letteratura\" }",
+            "{ \"question\": \"Quale animale è conosciuto come il miglior amico dell'uomo?\", \"options\": [\"Gatto\", \"Cane\", \"Cavallo\", \"Delfino\"], \"correctAnswer\": \"Cane\", \"difficulty\": \"easy\", \"category\": \"Natura\" }",
+            "{ \"question\": \"Il ragno è un insetto?\", \"options\": [\"VERO\", \"FALSO\"], \"correctAnswer\": \"FALSO\", \"difficulty\": \"medium\", \"category\": \"Natura\" }",
+            "{ \"question\": \"Qual è lo sport più popolare al mondo?\", \"options\": [\"Basket\", \"Tennis\", \"Calcio\", \"Rugby\"], \"correctAnswer\": \"Calcio\", \"difficulty\": \"easy\", \"category\": \"Sport\" }",
+            "{ \"question\": \"L'Uomo Ragno fa parte della DC Comics?\", \"options\": [\"VERO\", \"FALSO\"], \"correctAnswer\": \"FALSO\", \"difficulty\": \"medium\", \"category\": \"Fumetti\" }",
+            "{ \"question\": \"Quanti giorni ci sono in un anno bisestile?\", \"options\": [\"364\", \"365\", \"366\", \"367\"], \"correctAnswer\": \"366\", \"difficulty\": \"easy\", \"category\": \"Curiosità\" }"
+    };
+
+    public QuestionGeneratorService(GroqClient groqClient,
+            ImageResolver imageResolver,
+            DiskMediaCache diskMediaCache,
+            BlurPyramidService blurPyramidService,
             AppleMusicCuratorService appleMusicCuratorService,
-            com.pub_game_be.repository.CategoryRepository categoryRepository) {
-        this.restTemplate = restTemplate;
-        this.tmdbImageService = tmdbImageService;
+            QuestionBank questionBank,
+            @Qualifier("llmExecutor") Executor llmExecutor) {
+        this.groqClient = groqClient;
+        this.imageResolver = imageResolver;
+        this.diskMediaCache = diskMediaCache;
+        this.blurPyramidService = blurPyramidService;
         this.appleMusicCuratorService = appleMusicCuratorService;
-        this.categoryRepository = categoryRepository;
+        this.questionBank = questionBank;
+        this.llmExecutor = llmExecutor;
     }
 
     public String generateQuestionJson(String category, String type, String difficulty) {
+        return generateQuestionJson(category, type, difficulty, null);
+    }
+
+    /**
+     * @param onQuestionText opzionale: con {@code groq.api.streaming} riceve il testo della domanda
+     *                       appena il campo "question" si chiude nello stream, prima delle opzioni
+     */
+    public String generateQuestionJson(String category, String type, String difficulty,
+            Consumer<String> onQuestionText) {
 
         if ("ROULETTE".equalsIgnoreCase(type)) {
             String[] colors = { "ROSSO", "NERO", "VERDE", "BLU", "GIALLO", "BIANCO" };
@@ -73,17 +123,9 @@ public class QuestionGeneratorService {
         }
 
         if ("MUSIC".equalsIgnoreCase(type)) {
-            return generateMusicQuestion();
+            return generateMusicQuestion(null);
         }
 
-        String difficultyContext = switch (difficulty.toLowerCase()) {
-            case "facile" -> "Usa personaggi/domande molto popolari, quasi ovvi.";
-            case "medio" -> "Usa personaggi/domande di buona fama, ma non iconici.";
-            case "difficile" -> "Sii specifico. Usa personaggi/dettagli meno noti.";
-            default -> "Difficoltà bilanciata.";
-        };
-
-        String prompt;
         if ("SCREAM_RACE".equalsIgnoreCase(type)) {
             return """
                     {
@@ -94,6 +136,123 @@ public class QuestionGeneratorService {
                     """;
         }
 
+        if ("ARENA".equalsIgnoreCase(type)) {
+            // Le domande vivono nella sequenza per partita di ArenaQuestionService
+            return getFallbackJson("ARENA");
+        }
+
+        return generateWithinBudget(category, type, difficulty, onQuestionText);
+    }
+
+    /**
+     * ⏱️ Aspetta Groq al massimo il budget del tipo: oltre, o con il circuito aperto,
+     * serve subito una domanda dal database o dal catalogo di fallback.
+     */
+    private String generateWithinBudget(String category, String type, String difficulty,
+            Consumer<String> onQuestionText) {
+        if (!groqClient.isAvailable()) {
+            return getBankOrFallbackJson(category, type);
+        }
+
+        long budgetMs = "IMAGE_BLUR".equalsIgnoreCase(type) ? imageBlurBudgetMs : defaultBudgetMs;
+        CompletableFuture<Optional<String>> call;
+        try {
+            call = CompletableFuture.supplyAsync(
+                    () -> generateAiQuestionJson(category, type, difficulty, onQuestionText), llmExecutor);
+        } catch (RejectedExecutionException e) {
+            return getBankOrFallbackJson(category, type);
+        }
+
+        try {
+            return call.get(budgetMs, TimeUnit.MILLISECONDS)
+                    .orElseGet(() -> getBankOrFallbackJson(category, type));
+        } catch (TimeoutException e) {
+            budgetOverruns.increment();
+            groqClient.recordBudgetOverrun();
+            if (budgetOverrunLog.sample()) {
+                log.atWarn().addKeyValue("type", type).addKeyValue("budgetMs", budgetMs)
+                        .log("⏱️ Budget Groq superato: uso il fallback ({} sforamenti finora)", budgetOverrunLog.count());
+            }
+            return getBankOrFallbackJson(category, type);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return getBankOrFallbackJson(category, type);
+        } catch (ExecutionException e) {
+            return getBankOrFallbackJson(category, type);
+        }
+    }
+
+    private String getBankOrFallbackJson(String category, String type) {
+        if ("QUIZ".equalsIgnoreCase(type) || "TRUE_FALSE".equalsIgnoreCase(type)) {
+            try {
+                Optional<Question> stored = questionBank.random(category, QuestionType.valueOf(type.toUpperCase()));
+                if (stored.isPresent()) {
+                    bankFallbacks.increment();
+                    return toPayloadJson(stored.get(), type);
+                }
+            } catch (Exception e) {
+                log.warn("❌ Fallback da database non riuscito: {}", e.getMessage());
+            }
+        }
+
+        catalogFallbacks.increment();
+        return getFallbackJson(type);
+    }
+
+    private String toPayloadJson(Question question, String type) {
+        if (question.getPayload() != null && !question.getPayload().isBlank()) {
+            return question.getPayload();
+        }
+
+        JSONArray options = new JSONArray();
+        // La banca le carica insieme alla domanda; se mancassero meglio nessuna opzione che una LazyInitializationException
+        if (question.getOptions() != null && Hibernate.isInitialized(question.getOptions())) {
+            for (QuestionOption option : question.getOptions()) {
+                options.put(option.getValue());
+            }
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("question", question.getText());
+        json.put("options", options);
+        json.put("correctAnswer", question.getCorrectAnswer());
+        json.put("type", type.toUpperCase());
+        return json.toString();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("defaultBudgetMs", defaultBudgetMs);
+        out.put("imageBlurBudgetMs", imageBlurBudgetMs);
+        out.put("budgetOverruns", budgetOverruns.sum());
+        out.put("bankFallbacks", bankFallbacks.sum());
+        out.put("catalogFallbacks", catalogFallbacks.sum());
+        return out;
+    }
+
+    /**
+     * 🤖 Chiamata live a Groq: restituisce solo payload validati, vuoto se l'AI non risponde
+     * o il JSON non supera la validazione (il chiamante decide il fallback).
+     */
+    public Optional<String> generateAiQuestionJson(String category, String type, String difficulty) {
+        return generateAiQuestionJson(category, type, difficulty, null, 1);
+    }
+
+    private Optional<String> generateAiQuestionJson(String category, String type, String difficulty,
+            Consumer<String> onQuestionText) {
+        return generateAiQuestionJson(category, type, difficulty, onQuestionText, 1);
+    }
+
+    private Optional<String> generateAiQuestionJson(String category, String type, String difficulty,
+            Consumer<String> onQuestionText, int attempt) {
+        String difficultyContext = switch (difficulty.toLowerCase()) {
+            case "facile" -> "Usa personaggi/domande molto popolari, quasi ovvi.";
+            case "medio" -> "Usa personaggi/domande di buona fama, ma non iconici.";
+            case "difficile" -> "Sii specifico. Usa personaggi/dettagli meno noti.";
+            default -> "Difficoltà bilanciata.";
+        };
+
+        String prompt;
         if ("IMAGE_BLUR".equalsIgnoreCase(type)) {
             String recentList = recentCelebrities.isEmpty()
                     ? "nessuno"
@@ -134,8 +293,7 @@ public class QuestionGeneratorService {
                             "  \"options\": null\n" +
                             "}",
                     category, difficulty, difficultyContext, recentList);
-        }
-        if ("TRUE_FALSE".equalsIgnoreCase(type)) {
+        } else if ("TRUE_FALSE".equalsIgnoreCase(type)) {
             boolean shouldBeTrue = new Random().nextBoolean();
             prompt = String.format(
                     "Sei il presentatore di un quiz televisivo.\n" +
@@ -215,54 +373,6 @@ public class QuestionGeneratorService {
                             "Rispondi SOLO con JSON valido (NO markdown).",
                     category, difficulty, difficultyContext);
         }
-        if ("ARENA".equalsIgnoreCase(type)) {
-            prompt = String.format(
-                    "Sei il presentatore di un quiz televisivo.\n" +
-                            "Genera una lista di 40 domande miste per la modalità ARENA (Battle Royale).\n" +
-                            "⚠️ REGOLE RIGIDE:\n" +
-                            "1. Alterna diverse categorie (Scienza, Storia, Sport, Cinema, Geografia, Curiosità, ecc.).\n"
-                            +
-                            "2. Usa un mix di tipi: 70%% tipo 'QUIZ' (4 opzioni) e 30%% tipo 'TRUE_FALSE' (2 opzioni: VERO, FALSO).\n"
-                            +
-                            "3. Le prime 20 domande devono essere FACILI, le restanti 20 di DIFFICOLTÀ MEDIA.\n" +
-                            "4. Ogni oggetto JSON deve avere: \"question\", \"options\" (array di stringhe), \"correctAnswer\" (valore esatto presente in options), \"difficulty\" (\"easy\" o \"medium\"), \"category\" (nome categoria).\n"
-                            +
-                            "5. Per le domande TRUE_FALSE, 'options' deve essere [\"VERO\", \"FALSO\"].\n" +
-                            "6. Rispondi SOLO con un array JSON valido, senza testo extra.\n\n" +
-                            "Esempio formato:\n" +
-                            "[\n" +
-                            "  { \"question\": \"...\", \"options\": [\"A\",\"B\",\"C\",\"D\"], \"correctAnswer\": \"A\", \"difficulty\": \"easy\", \"category\": \"Storia\" },\n"
-                            +
-                            "  { \"question\": \"...\", \"options\": [\"VERO\",\"FALSO\"], \"correctAnswer\": \"VERO\", \"difficulty\": \"easy\", \"category\": \"Scienza\" }\n"
-                            +
-                            "]");
-
-            Map<String, Object> request = new HashMap<>();
-            request.put("model", model);
-            request.put("messages", List.of(Map.of("role", "user", "content", prompt)));
-            request.put("temperature", defaultTemperature);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(apiKey);
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(request, headers);
-
-            try {
-                ResponseEntity<String> response = restTemplate.postForEntity(GROQ_API_URL, entity, String.class);
-                String rawContent = parseJsonResponse(response.getBody());
-                String cleanedJson = cleanAiJson(rawContent);
-
-                JSONObject wrapper = new JSONObject();
-                wrapper.put("type", "ARENA");
-                wrapper.put("questions", new JSONArray()); // Return empty array to TV, devices will fetch individually
-                return wrapper.toString();
-
-            } catch (Exception e) {
-                return getFallbackJson("ARENA");
-            }
-
-        }
         /*} else if ("ONE_VS_ONE".equalsIgnoreCase(type) || "1VS1".equalsIgnoreCase(type)) {
             prompt = String.format(
                     "Sei il presentatore di un quiz televisivo.\n" +
@@ -295,25 +405,12 @@ public class QuestionGeneratorService {
                     category, type, difficulty, difficultyContext, type);
         }
 
-        Map<String, Object> request = new HashMap<>();
-        request.put("model", model);
-        request.put("messages", List.of(Map.of("role", "user", "content", prompt)));
-
-        if ("IMAGE_BLUR".equalsIgnoreCase(type)) {
-            request.put("temperature", imageBlurTemperature);
-        } else {
-            request.put("temperature", defaultTemperature);
-        }
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBearerAuth(apiKey);
-        headers.setContentType(MediaType.APPLICATION_JSON);
-
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(request, headers);
+        double temperature = "IMAGE_BLUR".equalsIgnoreCase(type) ? imageBlurTemperature : defaultTemperature;
 
         try {
-            ResponseEntity<String> response = restTemplate.postForEntity(GROQ_API_URL, entity, String.class);
-            String rawContent = parseJsonResponse(response.getBody());
+            String rawContent = streaming && onQuestionText != null
+                    ? completeStreaming(prompt, temperature, onQuestionText)
+                    : groqClient.complete(prompt, temperature, false);
             String cleanedJson = cleanAiJson(rawContent);
 
             try {
@@ -321,89 +418,106 @@ public class QuestionGeneratorService {
 
                 if ("QUIZ".equalsIgnoreCase(type) || "TRUE_FALSE".equalsIgnoreCase(type)) {
                     if (!validateQuizJson(jsonObj, type)) {
-                        return getFallbackJson(type);
+                        return Optional.empty();
                     }
                 }
 
                 if ("IMAGE_BLUR".equalsIgnoreCase(type) && jsonObj.has("correctAnswer")) {
                     String celebrity = jsonObj.getString("correctAnswer");
 
-                    String imageUrl = tmdbImageService.getCelebrityImageUrl(celebrity);
+                    String imageUrl = imageResolver.resolve(celebrity);
 
                     if (imageUrl != null && !imageUrl.isEmpty()) {
-                        jsonObj.put("imageUrl", imageUrl);
+                        putProxiedImage(jsonObj, imageUrl);
                         addToRecentCelebrities(celebrity);
 
+                    } else if (attempt < MAX_IMAGE_ATTEMPTS) {
+                        addToRecentCelebrities(celebrity);
+                        return generateAiQuestionJson(category, type, difficulty, null, attempt + 1);
                     } else {
-                        return generateQuestionJson(category, type, difficulty);
+                        return Optional.empty();
                     }
 
                     cleanedJson = jsonObj.toString();
                 }
 
-                return cleanedJson;
+                return Optional.of(cleanedJson);
 
             } catch (Exception parseEx) {
-                return getFallbackJson(type);
+                return Optional.empty();
             }
 
         } catch (Exception e) {
-            return getFallbackJson(type);
+            return Optional.empty();
         }
     }
 
-    private boolean validateQuizJson(JSONObject jsonObj, String type) {
-        try {
-            if (!jsonObj.has("correctAnswer") || !jsonObj.has("options")) {
-                return false;
-            }
-
-            String correctAnswer = jsonObj.getString("correctAnswer");
-            JSONArray options = jsonObj.getJSONArray("options");
-
-            if ("TRUE_FALSE".equalsIgnoreCase(type)) {
-                if (options.length() != 2) {
-                    return false;
-                }
-
-                boolean hasVero = false;
-                boolean hasFalso = false;
-                for (int i = 0; i < options.length(); i++) {
-                    String opt = options.getString(i);
-                    if ("VERO".equals(opt))
-                        hasVero = true;
-                    if ("FALSO".equals(opt))
-                        hasFalso = true;
-                }
-
-                if (!hasVero || !hasFalso) {
-                    return false;
-                }
-
-                if (!"VERO".equals(correctAnswer) && !"FALSO".equals(correctAnswer)) {
-                    return false;
-                }
+    private String completeStreaming(String prompt, double temperature, Consumer<String> onQuestionText) {
+        IncrementalJsonExtractor extractor = new IncrementalJsonExtractor("question", onQuestionText);
+        return groqClient.completeStreaming(prompt, temperature, extractor::feed);
+    }
 
-                return true;
-            }
+    /**
+     * 🏟️ Un'unica chiamata Groq per 40 domande ARENA; scarta quelle non valide e,
+     * se l'AI non risponde, restituisce il catalogo di fallback mescolato.
+     */
+    public List<String> generateArenaBatch() {
+        String prompt = String.format(
+                "Sei il presentatore di un quiz televisivo.\n" +
+                        "Genera una lista di 40 domande miste per la modalità ARENA (Battle Royale).\n" +
+                        "⚠️ REGOLE RIGIDE:\n" +
+                        "1. Alterna diverse categorie (Scienza, Storia, Sport, Cinema, Geografia, Curiosità, ecc.).\n"
+                        +
+                        "2. Usa un mix di tipi: 70%% tipo 'QUIZ' (4 opzioni) e 30%% tipo 'TRUE_FALSE' (2 opzioni: VERO, FALSO).\n"
+                        +
+                        "3. Le prime 20 domande devono essere FACILI, le restanti 20 di DIFFICOLTÀ MEDIA.\n" +
+                        "4. Ogni oggetto JSON deve avere: \"question\", \"options\" (array di stringhe), \"correctAnswer\" (valore esatto presente in options), \"difficulty\" (\"easy\" o \"medium\"), \"category\" (nome categoria).\n"
+                        +
+                        "5. Per le domande TRUE_FALSE, 'options' deve essere [\"VERO\", \"FALSO\"].\n" +
+                        "6. Rispondi SOLO con un array JSON valido, senza testo extra.\n\n" +
+                        "Esempio formato:\n" +
+                        "[\n" +
+                        "  { \"question\": \"...\", \"options\": [\"A\",\"B\",\"C\",\"D\"], \"correctAnswer\": \"A\", \"difficulty\": \"easy\", \"category\": \"Storia\" },\n"
+                        +
+                        "  { \"question\": \"...\", \"options\": [\"VERO\",\"FALSO\"], \"correctAnswer\": \"VERO\", \"difficulty\": \"easy\", \"category\": \"Scienza\" }\n"
+                        +
+                        "]");
 
-            boolean found = false;
-            for (int i = 0; i < options.length(); i++) {
-                if (options.getString(i).equals(correctAnswer)) {
-                    found = true;
-                    break;
+        try {
+            String rawContent = groqClient.complete(prompt, defaultTemperature, false);
+            JSONArray questions = new JSONArray(cleanAiJsonArray(rawContent));
+
+            List<String> batch = new ArrayList<>(questions.length());
+            for (int i = 0; i < questions.length(); i++) {
+                JSONObject q = questions.optJSONObject(i);
+                if (q != null && isValidArenaQuestion(q)) {
+                    batch.add(q.toString());
                 }
             }
 
-            if (!found) {
-                return false;
+            if (batch.isEmpty()) {
+                log.warn("❌ Batch ARENA senza domande valide");
+                return getFallbackArenaBatch();
             }
-
-            return true;
+            return batch;
 
         } catch (Exception e) {
+            log.warn("❌ Eccezione durante la generazione batch Arena: {}", e.getMessage());
+            return getFallbackArenaBatch();
+        }
+    }
+
+    private boolean isValidArenaQuestion(JSONObject q) {
+        if (!q.has("question") || !q.has("options") || !q.has("correctAnswer")) {
             return false;
         }
+        JSONArray options = q.optJSONArray("options");
+        String type = options != null && options.length() == 2 ? "TRUE_FALSE" : "QUIZ";
+        return validateQuizJson(q, type);
+    }
+
+    private boolean validateQuizJson(JSONObject jsonObj, String type) {
+        return QuizJsonValidator.isValid(jsonObj, type);
     }
 
     public String generateSingleArenaQuestion(String category) {
@@ -425,59 +539,48 @@ public class QuestionGeneratorService {
                 "Esempio TRUE_FALSE:\n" +
                 "{ \"question\": \"...\", \"options\": [\"VERO\",\"FALSO\"], \"correctAnswer\": \"VERO\", \"difficulty\": \"medium\", \"category\": \"Scienza\" }";
 
-        Map<String, Object> request = new HashMap<>();
-        request.put("model", model);
-        request.put("messages", List.of(Map.of("role", "user", "content", prompt)));
-        request.put("temperature", defaultTemperature);
-        request.put("response_format", Map.of("type", "json_object")); // Force JSON object
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBearerAuth(apiKey);
-        headers.setContentType(MediaType.APPLICATION_JSON);
-
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(request, headers);
-
         try {
-            ResponseEntity<String> response = restTemplate.postForEntity(GROQ_API_URL, entity, String.class);
-            String rawContent = parseJsonResponse(response.getBody());
+            String rawContent = groqClient.complete(prompt, defaultTemperature, true); // Force JSON object
             String cleanedJson = cleanAiJson(rawContent);
 
             JSONObject jsonObj = new JSONObject(cleanedJson);
 
             // Validate it
             if (!jsonObj.has("correctAnswer") || !jsonObj.has("options") || !jsonObj.has("question")) {
-                System.err.println("❌ Formato JSON AI non valido: " + cleanedJson);
+                log.warn("❌ Formato JSON AI non valido: {}", cleanedJson);
                 return getSingleFallbackArenaQuestion();
             }
 
             return jsonObj.toString();
 
         } catch (Exception e) {
-            System.err.println("❌ Eccezione durante la generazione AI Arena: " + e.getMessage());
+            log.warn("❌ Eccezione durante la generazione AI Arena: {}", e.getMessage());
             return getSingleFallbackArenaQuestion();
         }
     }
 
     private String getSingleFallbackArenaQuestion() {
-        String[] safeFallbacks = {
-                "{ \"question\": \"Quanto fa 5 + 5?\", \"options\": [\"8\", \"10\", \"12\", \"15\"], \"correctAnswer\": \"10\", \"difficulty\": \"easy\", \"category\": \"Matematica\" }",
-                "{ \"question\": \"Qual è la capitale d'Italia?\", \"options\": [\"Milano\", \"Roma\", \"Napoli\", \"Torino\"], \"correctAnswer\": \"Roma\", \"difficulty\": \"easy\", \"category\": \"Geografia\" }",
-                "{ \"question\": \"Qual è il fiume più lungo del mondo?\", \"options\": [\"Nilo\", \"Rio delle Amazzoni\", \"Gange\", \"Mississippi\"], \"correctAnswer\": \"Rio delle Amazzoni\", \"difficulty\": \"medium\", \"category\": \"Geografia\" }",
-                "{ \"question\": \"Chi ha dipinto la Gioconda?\", \"options\": [\"Michelangelo\", \"Raffaello\", \"Munch\", \"Leonardo Da Vinci\"], \"correctAnswer\": \"Leonardo Da Vinci\", \"difficulty\": \"easy\", \"category\": \"Arte\" }",
-                "{ \"question\": \"Qual è il pianeta più grande del sistema solare?\", \"options\": [\"Giove\", \"Saturno\", \"Terra\", \"Marte\"], \"correctAnswer\": \"Giove\", \"difficulty\": \"easy\", \"category\": \"Scienza\" }",
-                "{ \"question\": \"La Terra è piatta?\", \"options\": [\"VERO\", \"FALSO\"], \"correctAnswer\": \"FALSO\", \"difficulty\": \"easy\", \"category\": \"Geografia\" }",
-                "{ \"question\": \"L'acqua bolle a 100 gradi Celsius?\", \"options\": [\"VERO\", \"FALSO\"], \"correctAnswer\": \"VERO\", \"difficulty\": \"easy\", \"category\": \"Scienza\" }",
-                "{ \"question\": \"Roma è la capitale della Francia?\", \"options\": [\"VERO\", \"FALSO\"], \"correctAnswer\": \"FALSO\", \"difficulty\": \"easy\", \"category\": \"Geografia\" }",
-                "{ \"question\": \"Il sole è una stella?\", \"options\": [\"VERO\", \"FALSO\"], \"correctAnswer\": \"VERO\", \"difficulty\": \"easy\", \"category\": \"Scienza\" }",
-                "{ \"question\": \"In che anno è iniziata la Prima Guerra Mondiale?\", \"options\": [\"1914\", \"1918\", \"1939\", \"1945\"], \"correctAnswer\": \"1914\", \"difficulty\": \"medium\", \"category\": \"Storia\" }",
-                "{ \"question\": \"Chi ha scritto la Divina Commedia?\", \"options\": [\"Boccaccio\", \"Petrarca\", \"Dante Alighieri\", \"Machiavelli\"], \"correctAnswer\": \"Dante Alighieri\", \"difficulty\": \"easy\", \"category\": \"Letteratura\" }",
-                "{ \"question\": \"Quale animale è conosciuto come il miglior amico dell'uomo?\", \"options\": [\"Gatto\", \"Cane\", \"Cavallo\", \"Delfino\"], \"correctAnswer\": \"Cane\", \"difficulty\": \"easy\", \"category\": \"Natura\" }",
-                "{ \"question\": \"Il ragno è un insetto?\", \"options\": [\"VERO\", \"FALSO\"], \"correctAnswer\": \"FALSO\", \"difficulty\": \"medium\", \"category\": \"Natura\" }",
-                "{ \"question\": \"Qual è lo sport più popolare al mondo?\", \"options\": [\"Basket\", \"Tennis\", \"Calcio\", \"Rugby\"], \"correctAnswer\": \"Calcio\", \"difficulty\": \"easy\", \"category\": \"Sport\" }",
-                "{ \"question\": \"L'Uomo Ragno fa parte della DC Comics?\", \"options\": [\"VERO\", \"FALSO\"], \"correctAnswer\": \"FALSO\", \"difficulty\": \"medium\", \"category\": \"Fumetti\" }",
-                "{ \"question\": \"Quanti giorni ci sono in un anno bisestile?\", \"options\": [\"364\", \"365\", \"366\", \"367\"], \"correctAnswer\": \"366\", \"difficulty\": \"easy\", \"category\": \"Curiosità\" }"
-        };
-        return safeFallbacks[new Random().nextInt(safeFallbacks.length)];
+        return ARENA_FALLBACKS[new Random().nextInt(ARENA_FALLBACKS.length)];
+    }
+
+    private List<String> getFallbackArenaBatch() {
+        List<String> batch = new ArrayList<>(Arrays.asList(ARENA_FALLBACKS));
+        Collections.shuffle(batch);
+        return batch;
+    }
+
+    /**
+     * La foto viene già scaricata in cache locale e il payload porta solo {@code blurUrls}, i livelli di
+     * sfocatura dal più sfocato al più nitido: la foto nitida è la risposta, quindi né il suo URL locale né
+     * quello di TMDB/Pexels vanno in broadcast. Arriva con ANSWER_RESULT quando il round si chiude.
+     */
+    private void putProxiedImage(JSONObject question, String imageUrl) {
+        if (diskMediaCache.proxy("images", imageUrl).equals(imageUrl)) {
+            return; // Non è un URL http(s): niente foto piuttosto che l'originale in chiaro
+        }
+        String blurId = blurPyramidService.register(DiskMediaCache.key(imageUrl));
+        question.put("blurId", blurId);
+        question.put("blurUrls", new JSONArray(blurPyramidService.blurUrls(blurId)));
     }
 
     private void addToRecentCelebrities(String celebrity) {
@@ -514,12 +617,18 @@ public class QuestionGeneratorService {
         return content.trim();
     }
 
-    private String parseJsonResponse(String responseBody) {
-        JSONObject json = new JSONObject(responseBody);
-        return json.getJSONArray("choices")
-                .getJSONObject(0)
-                .getJSONObject("message")
-                .getString("content");
+    private String cleanAiJsonArray(String content) {
+        if (content == null)
+            return "[]";
+
+        int firstBracket = content.indexOf("[");
+        int lastBracket = content.lastIndexOf("]");
+
+        if (firstBracket >= 0 && lastBracket > firstBracket) {
+            return content.substring(firstBracket, lastBracket + 1).trim();
+        }
+
+        return content.trim();
     }
 
     private String getFallbackJson(String type) {
@@ -556,9 +665,9 @@ public class QuestionGeneratorService {
             try {
                 JSONObject obj = new JSONObject(fallbackJson);
                 String celebrity = obj.getString("correctAnswer");
-                String imageUrl = tmdbImageService.getCelebrityImageUrl(celebrity);
+                String imageUrl = imageResolver.resolve(celebrity);
                 if (imageUrl != null) {
-                    obj.put("imageUrl", imageUrl);
+                    putProxiedImage(obj, imageUrl);
                     return obj.toString();
                 }
             } catch (Exception e) {
@@ -757,14 +866,18 @@ public class QuestionGeneratorService {
         return provs[new Random().nextInt(provs.length)];
     }
 
-    private String generateMusicQuestion() {
-        MusicTrackDto track = appleMusicCuratorService.getFamousSong();
+    /**
+     * @param gameId se presente, il brano non ripete quelli già usciti nella partita
+     */
+    public String generateMusicQuestion(Long gameId) {
+        MusicTrackDto track = appleMusicCuratorService.getFamousSong(gameId);
 
         JSONObject response = new JSONObject();
         response.put("type", "MUSIC");
         response.put("songTitle", track.title);
         response.put("artist", track.artist);
-        response.put("previewUrl", track.previewUrl);
+        // L'anteprima si scarica subito in cache: i client la ascoltano dalla LAN, non da Apple
+        response.put("previewUrl", diskMediaCache.proxy("audio", track.previewUrl));
         response.put("albumCover", track.albumCover);
         response.put("year", track.year);
         response.put("source", track.source);
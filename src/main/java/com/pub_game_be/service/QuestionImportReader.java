@@ -0,0 +1,188 @@
+package com.pub_game_be.service;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 📥 Lettura incrementale di un file di domande, una riga alla volta: in memoria c'è solo la riga corrente.
+ * Ogni riga diventa un JSONObject nella stessa forma delle risposte di Groq
+ * ({@code question}, {@code options}, {@code correctAnswer}, {@code category}, {@code difficulty}, {@code type}).
+ * <ul>
+ *   <li>CSV: intestazione obbligatoria con quei nomi di colonna, opzioni separate da {@code |}, campi fra
+ *   virgolette come da RFC 4180 (virgole, a capo e {@code ""} dentro le virgolette).</li>
+ *   <li>JSONL: un oggetto per riga; vanno bene anche le righe di {@code /questions/export}
+ *   ({@code text}, {@code categoryName}, opzioni come oggetti {@code {value, correct}}).</li>
+ * </ul>
+ */
+public class QuestionImportReader {
+
+    public enum Format {
+        CSV, JSONL
+    }
+
+    /**
+     * Una riga letta: {@code json} se è leggibile, altrimenti {@code error}. {@code line} è la riga di inizio nel file.
+     */
+    public record Row(long line, JSONObject json, String error) {
+    }
+
+    private final BufferedReader reader;
+    private final Format format;
+    private long line;
+    private String[] header;
+
+    public QuestionImportReader(Reader reader, Format format) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader, 64 * 1024);
+        this.format = format;
+    }
+
+    /**
+     * La prossima riga non vuota, o null a fine file.
+     */
+    public Row next() throws IOException {
+        return format == Format.CSV ? nextCsv() : nextJsonl();
+    }
+
+    private Row nextJsonl() throws IOException {
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            try {
+                return new Row(line, normalize(new JSONObject(text)), null);
+            } catch (JSONException e) {
+                return new Row(line, null, "JSON non valido: " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private Row nextCsv() throws IOException {
+        if (header == null) {
+            List<String> names = readRecord();
+            if (names == null) {
+                return null;
+            }
+            header = names.stream().map(name -> name.trim().toLowerCase()).toArray(String[]::new);
+        }
+
+        while (true) {
+            long startLine = line + 1;
+            List<String> fields = readRecord();
+            if (fields == null) {
+                return null;
+            }
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < header.length && i < fields.size(); i++) {
+                values.put(header[i], fields.get(i).trim());
+            }
+
+            JSONObject json = new JSONObject();
+            json.put("question", values.getOrDefault("question", ""));
+            json.put("correctAnswer", values.getOrDefault("correctanswer", ""));
+            json.put("category", values.getOrDefault("category", ""));
+            putIfPresent(json, "difficulty", values.get("difficulty"));
+            putIfPresent(json, "type", values.get("type"));
+
+            JSONArray options = new JSONArray();
+            String joined = values.getOrDefault("options", "");
+            if (!joined.isEmpty()) {
+                for (String option : joined.split("\\|")) {
+                    options.put(option.trim());
+                }
+            }
+            json.put("options", options);
+            return new Row(startLine, json, null);
+        }
+    }
+
+    /**
+     * Un record CSV (anche su più righe se ci sono a capo fra virgolette), o null a fine file.
+     */
+    private List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+
+        int c;
+        while ((c = reader.read()) != -1) {
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                line++;
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+
+        if (!any) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Riporta le righe di {@code /questions/export} alla forma di Groq.
+     */
+    private static JSONObject normalize(JSONObject json) {
+        if (!json.has("question") && json.has("text")) {
+            json.put("question", json.get("text"));
+        }
+        if (!json.has("category") && json.has("categoryName")) {
+            json.put("category", json.get("categoryName"));
+        }
+        JSONArray options = json.optJSONArray("options");
+        if (options != null) {
+            JSONArray flat = new JSONArray();
+            for (int i = 0; i < options.length(); i++) {
+                Object option = options.get(i);
+                flat.put(option instanceof JSONObject object ? object.optString("value") : String.valueOf(option));
+            }
+            json.put("options", flat);
+        }
+        return json;
+    }
+
+    private static void putIfPresent(JSONObject json, String key, String value) {
+        if (value != null && !value.isEmpty()) {
+            json.put(key, value);
+        }
+    }
+}
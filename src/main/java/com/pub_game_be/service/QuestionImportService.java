@@ -0,0 +1,306 @@
+package com.pub_game_be.service;
+
+import com.pub_game_be.domain.category.Category;
+import com.pub_game_be.domain.enums.QuestionType;
+import com.pub_game_be.domain.question.Question;
+import com.pub_game_be.domain.question.QuestionOption;
+import com.pub_game_be.dto.ImportReportDto;
+import com.pub_game_be.dto.QuestionDto;
+import com.pub_game_be.repository.CategoryRepository;
+import com.pub_game_be.repository.QuestionRepository;
+import jakarta.persistence.EntityManager;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 📦 Import massivo di domande da CSV o JSONL ({@link QuestionImportReader}). Ogni riga passa dalle stesse
+ * regole delle domande di Groq ({@link QuizJsonValidator}), i doppioni (stessa categoria, tipo e testo,
+ * anche rispetto al database) vengono saltati e le domande valide si scrivono a blocchi di
+ * {@code game.questions.import-batch}: una transazione per blocco, flush e clear alla fine, così il
+ * persistence context non cresce. Con gli id a sequenza e {@code hibernate.jdbc.batch_size} gli INSERT
+ * di domande e opzioni partono in batch JDBC.
+ * <p>
+ * In memoria restano la riga corrente, un blocco e 8 byte di hash per ogni domanda distinta.
+ */
+@Service
+public class QuestionImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuestionImportService.class);
+
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    private final QuestionRepository questionRepository;
+    private final CategoryRepository categoryRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int importBatch;
+
+    private final LongAdder imports = new LongAdder();
+    private final LongAdder importedRows = new LongAdder();
+    private final LongAdder rejectedRows = new LongAdder();
+
+    public QuestionImportService(QuestionRepository questionRepository,
+            CategoryRepository categoryRepository,
+            EntityManager entityManager,
+            TransactionTemplate transactionTemplate,
+            @Value("${game.questions.import-batch:500}") int importBatch) {
+        this.questionRepository = questionRepository;
+        this.categoryRepository = categoryRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.importBatch = importBatch;
+    }
+
+    public ImportReportDto importQuestions(InputStream in, QuestionImportReader.Format format) throws IOException {
+        return importQuestions(new InputStreamReader(in, StandardCharsets.UTF_8), format);
+    }
+
+    public ImportReportDto importQuestions(Reader in, QuestionImportReader.Format format) throws IOException {
+        imports.increment();
+        long start = System.currentTimeMillis();
+        ImportReportDto report = new ImportReportDto();
+        report.format = format.name();
+
+        LongHashSet seen = existingKeys();
+        Map<String, Category> categories = new HashMap<>();
+        List<Question> batch = new ArrayList<>(importBatch);
+
+        QuestionImportReader reader = new QuestionImportReader(in, format);
+        QuestionImportReader.Row row;
+        while ((row = reader.next()) != null) {
+            report.rowsRead++;
+            String error = row.error() != null ? row.error() : validate(row.json());
+            if (error != null) {
+                reject(report, row.line(), error);
+                continue;
+            }
+
+            JSONObject json = row.json();
+            String type = typeOf(json);
+            if (!seen.add(hash(json.optString("category"), type, json.optString("question")))) {
+                report.duplicates++;
+                continue;
+            }
+
+            batch.add(toQuestion(json, type, categories));
+            if (batch.size() >= importBatch) {
+                flush(batch, report);
+            }
+        }
+        flush(batch, report);
+
+        report.elapsedMs = System.currentTimeMillis() - start;
+        report.rowsPerSecond = report.elapsedMs == 0 ? report.rowsRead : report.rowsRead * 1000.0 / report.elapsedMs;
+        importedRows.add(report.imported);
+        rejectedRows.add(report.invalid);
+        log.info("📦 Import {}: {} righe, {} importate, {} doppioni, {} scartate in {} ms ({} righe/s)",
+                report.format, report.rowsRead, report.imported, report.duplicates, report.invalid,
+                report.elapsedMs, Math.round(report.rowsPerSecond));
+        return report;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("importBatch", importBatch);
+        out.put("imports", imports.sum());
+        out.put("importedRows", importedRows.sum());
+        out.put("rejectedRows", rejectedRows.sum());
+        return out;
+    }
+
+    private void flush(List<Question> batch, ImportReportDto report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Question question : batch) {
+                entityManager.persist(question);
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+        report.imported += batch.size();
+        report.batches++;
+        batch.clear();
+    }
+
+    /**
+     * Null se la riga è importabile, altrimenti il motivo.
+     */
+    private static String validate(JSONObject json) {
+        if (json.optString("question").isBlank()) {
+            return "testo della domanda mancante";
+        }
+        if (json.optString("category").isBlank()) {
+            return "categoria mancante";
+        }
+        String type = typeOf(json);
+        if (type == null) {
+            return "tipo non supportato: " + json.optString("type");
+        }
+        if (!QuizJsonValidator.isValid(json, type)) {
+            return "opzioni o risposta corretta non valide per " + type;
+        }
+        return null;
+    }
+
+    /**
+     * Tipo dichiarato, oppure dedotto: opzioni esattamente VERO e FALSO = TRUE_FALSE, altrimenti QUIZ
+     * (anche con due sole opzioni).
+     */
+    private static String typeOf(JSONObject json) {
+        String declared = json.optString("type").trim().toUpperCase();
+        if (declared.isEmpty()) {
+            return isVeroFalso(json.optJSONArray("options")) ? QuestionType.TRUE_FALSE.name() : QuestionType.QUIZ.name();
+        }
+        for (QuestionType type : QuestionType.values()) {
+            if (type.name().equals(declared)) {
+                return declared;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isVeroFalso(JSONArray options) {
+        if (options == null || options.length() != 2) {
+            return false;
+        }
+        String first = options.optString(0);
+        String second = options.optString(1);
+        return ("VERO".equals(first) && "FALSO".equals(second)) || ("FALSO".equals(first) && "VERO".equals(second));
+    }
+
+    private Question toQuestion(JSONObject json, String type, Map<String, Category> categories) {
+        String difficulty = json.optString("difficulty", "EASY").trim().toUpperCase();
+        JSONArray options = json.getJSONArray("options");
+        String correctAnswer = json.getString("correctAnswer");
+
+        Question question = new Question();
+        question.setCategory(category(json.getString("category").trim(), categories));
+        question.setType(QuestionType.valueOf(type));
+        question.setText(json.getString("question").trim());
+        question.setCorrectAnswer(correctAnswer);
+        question.setDifficulty(difficulty.isEmpty() ? "EASY" : difficulty);
+
+        List<QuestionOption> questionOptions = new ArrayList<>(options.length());
+        for (int i = 0; i < options.length(); i++) {
+            String value = options.getString(i);
+            questionOptions.add(new QuestionOption(null, value, value.equals(correctAnswer), question));
+        }
+        question.setOptions(questionOptions);
+
+        // Il payload è quello che il round pubblica e che AnswerTally usa per contare
+        JSONObject payload = new JSONObject();
+        payload.put("question", question.getText());
+        payload.put("options", options);
+        payload.put("correctAnswer", correctAnswer);
+        payload.put("type", type);
+        payload.put("category", question.getCategory().getName());
+        payload.put("difficulty", question.getDifficulty());
+        question.setPayload(payload.toString());
+        return question;
+    }
+
+    private Category category(String name, Map<String, Category> categories) {
+        return categories.computeIfAbsent(name.toLowerCase(), key -> categoryRepository.findFirstByNameIgnoreCase(name)
+                .orElseGet(() -> categoryRepository.save(new Category(null, name, true))));
+    }
+
+    private static void reject(ImportReportDto report, long line, String error) {
+        report.invalid++;
+        if (report.errors.size() < MAX_REPORTED_ERRORS) {
+            report.errors.add("riga " + line + ": " + error);
+        }
+    }
+
+    /**
+     * Chiavi delle domande già nel database, lette a pagine keyset.
+     */
+    private LongHashSet existingKeys() {
+        LongHashSet keys = new LongHashSet();
+        long after = 0;
+        while (true) {
+            List<QuestionDto> page = questionRepository.findDtosAfter(after, Limit.of(1000));
+            for (QuestionDto question : page) {
+                keys.add(hash(question.categoryName, question.type, question.text));
+            }
+            if (page.size() < 1000) {
+                return keys;
+            }
+            after = page.get(page.size() - 1).id;
+        }
+    }
+
+    /**
+     * FNV-1a a 64 bit su categoria, tipo e testo normalizzati (minuscole, spazi compattati).
+     */
+    private static long hash(String category, String type, String text) {
+        String key = normalize(category) + '\u0000' + (type == null ? "" : type) + '\u0000' + normalize(text);
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().replaceAll("\\s+", " ").toLowerCase();
+    }
+
+    /**
+     * Set di long a indirizzamento aperto: 8 byte per chiave invece di un Long in un HashSet.
+     * Lo 0 è il posto vuoto, quindi un hash uguale a 0 viene spostato a 1.
+     */
+    private static final class LongHashSet {
+        private long[] slots = new long[1024];
+        private int size;
+
+        boolean add(long value) {
+            long key = value == 0 ? 1 : value;
+            if (size * 2 >= slots.length) {
+                grow();
+            }
+            int mask = slots.length - 1;
+            int i = (int) (key ^ (key >>> 32)) & mask;
+            while (slots[i] != 0) {
+                if (slots[i] == key) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            slots[i] = key;
+            size++;
+            return true;
+        }
+
+        private void grow() {
+            long[] old = slots;
+            slots = new long[old.length * 2];
+            size = 0;
+            for (long key : old) {
+                if (key != 0) {
+                    add(key);
+                }
+            }
+        }
+    }
+}
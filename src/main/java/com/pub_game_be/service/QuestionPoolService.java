@@ -0,0 +1,257 @@
+package com.pub_game_be.service;
+
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 🧺 Scorta di domande AI già validate per (categoria, tipo, difficoltà).
+ * Un refill in background la riporta all'high watermark quando scende sotto il low watermark,
+ * così il round si genera con un dequeue in memoria e Groq viene chiamato live solo sui miss.
+ * Le chiavi arrivano dai client: oltre {@code game.question-pool.max-keys} si fa posto alla scorta usata
+ * meno di recente e quelle ferme da {@code game.question-pool.idle-evict-ms} vengono rimosse.
+ */
+@Service
+public class QuestionPoolService {
+
+    private static final Set<String> POOLABLE_TYPES = Set.of("QUIZ", "TRUE_FALSE", "CHRONO", "IMAGE_BLUR");
+
+    private final QuestionGeneratorService questionGeneratorService;
+    private final Executor refillExecutor;
+
+    @Value("${game.question-pool.enabled:true}")
+    private boolean enabled;
+
+    @Value("${game.question-pool.low-watermark:2}")
+    private int lowWatermark;
+
+    @Value("${game.question-pool.high-watermark:5}")
+    private int highWatermark;
+
+    @Value("${game.question-pool.max-keys:64}")
+    private int maxKeys;
+
+    @Value("${game.question-pool.idle-evict-ms:1800000}")
+    private long idleEvictMs;
+
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+    private final LongAdder evicted = new LongAdder();
+
+    public QuestionPoolService(QuestionGeneratorService questionGeneratorService,
+            @Qualifier("questionPoolExecutor") Executor refillExecutor) {
+        this.questionGeneratorService = questionGeneratorService;
+        this.refillExecutor = refillExecutor;
+    }
+
+    public String nextQuestionJson(String category, String type, String difficulty) {
+        return nextQuestionJson(category, type, difficulty, null);
+    }
+
+    public String nextQuestionJson(String category, String type, String difficulty,
+            Consumer<String> onQuestionText) {
+        Pool pool = poolFor(category, type, difficulty);
+        if (pool == null) {
+            return questionGeneratorService.generateQuestionJson(category, type, difficulty, onQuestionText);
+        }
+
+        String payload = pool.poll();
+        if (payload != null) {
+            pool.hits.increment();
+            scheduleRefill(pool);
+            return payload;
+        }
+
+        pool.misses.increment();
+        scheduleRefill(pool);
+        return questionGeneratorService.generateQuestionJson(category, type, difficulty, onQuestionText);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled);
+        out.put("lowWatermark", lowWatermark);
+        out.put("highWatermark", highWatermark);
+        out.put("evictedPools", evicted.sum());
+
+        List<Map<String, Object>> keys = new ArrayList<>();
+        for (Pool pool : pools.values()) {
+            keys.add(pool.stats());
+        }
+        out.put("pools", keys);
+        return out;
+    }
+
+    private Pool poolFor(String category, String type, String difficulty) {
+        if (!enabled || category == null || type == null || difficulty == null
+                || !POOLABLE_TYPES.contains(type.toUpperCase(Locale.ROOT))) {
+            return null;
+        }
+
+        String key = category.trim().toLowerCase(Locale.ROOT) + "|"
+                + type.toUpperCase(Locale.ROOT) + "|"
+                + difficulty.trim().toLowerCase(Locale.ROOT);
+
+        Pool pool = pools.get(key);
+        if (pool == null) {
+            if (pools.size() >= maxKeys && !evictLeastRecentlyUsed()) {
+                // Tutte le scorte stanno ricaricando: questa volta si va senza pool
+                return null;
+            }
+            pool = pools.computeIfAbsent(key, k -> new Pool(k, category.trim(), type.toUpperCase(Locale.ROOT), difficulty.trim()));
+        }
+        pool.lastUsed = System.currentTimeMillis();
+        return pool;
+    }
+
+    @Scheduled(fixedDelayString = "${game.question-pool.evict-check-ms:60000}")
+    public void evictIdlePools() {
+        long cutoff = System.currentTimeMillis() - idleEvictMs;
+        pools.values().removeIf(pool -> {
+            boolean idle = pool.lastUsed < cutoff && !pool.refilling.get();
+            if (idle) {
+                evicted.increment();
+            }
+            return idle;
+        });
+    }
+
+    private boolean evictLeastRecentlyUsed() {
+        Pool oldest = null;
+        for (Pool pool : pools.values()) {
+            if (!pool.refilling.get() && (oldest == null || pool.lastUsed < oldest.lastUsed)) {
+                oldest = pool;
+            }
+        }
+        if (oldest == null || !pools.remove(oldest.key, oldest)) {
+            return false;
+        }
+        evicted.increment();
+        return true;
+    }
+
+    private void scheduleRefill(Pool pool) {
+        if (pool.size.get() >= lowWatermark || !pool.refilling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refillExecutor.execute(() -> refill(pool));
+        } catch (RejectedExecutionException e) {
+            pool.refilling.set(false);
+        }
+    }
+
+    private void refill(Pool pool) {
+        long start = System.nanoTime();
+        int attempts = 0;
+        try {
+            while (pool.size.get() < highWatermark && attempts < highWatermark * 2) {
+                attempts++;
+                Optional<String> payload = questionGeneratorService
+                        .generateAiQuestionJson(pool.category, pool.type, pool.difficulty);
+                if (payload.isEmpty()) {
+                    // AI non disponibile: il prossimo miss riproverà, niente retry a vuoto
+                    break;
+                }
+                pool.offer(payload.get());
+            }
+        } finally {
+            pool.refills.increment();
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            pool.lastRefillMs.set(elapsedMs);
+            pool.totalRefillMs.add(elapsedMs);
+            pool.refilling.set(false);
+        }
+    }
+
+    private static final class Pool {
+        private static final int RECENT_QUESTIONS = 50;
+
+        private final String key;
+        private final String category;
+        private final String type;
+        private final String difficulty;
+
+        private final Queue<String> payloads = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean refilling = new AtomicBoolean();
+        private final Set<String> recentQuestions = new LinkedHashSet<>();
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder generated = new LongAdder();
+        private final LongAdder duplicates = new LongAdder();
+        private final LongAdder refills = new LongAdder();
+        private final LongAdder totalRefillMs = new LongAdder();
+        private final AtomicLong lastRefillMs = new AtomicLong();
+
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private Pool(String key, String category, String type, String difficulty) {
+            this.key = key;
+            this.category = category;
+            this.type = type;
+            this.difficulty = difficulty;
+        }
+
+        private String poll() {
+            String payload = payloads.poll();
+            if (payload != null) {
+                size.decrementAndGet();
+            }
+            return payload;
+        }
+
+        private void offer(String payload) {
+            // IMAGE_BLUR ha sempre lo stesso testo: la risposta distingue le domande
+            JSONObject json = new JSONObject(payload);
+            String question = (json.optString("question") + "|" + json.optString("correctAnswer"))
+                    .trim().toLowerCase(Locale.ROOT);
+
+            synchronized (recentQuestions) {
+                if (!recentQuestions.add(question)) {
+                    duplicates.increment();
+                    return;
+                }
+                if (recentQuestions.size() > RECENT_QUESTIONS) {
+                    Iterator<String> it = recentQuestions.iterator();
+                    it.next();
+                    it.remove();
+                }
+            }
+
+            payloads.add(payload);
+            size.incrementAndGet();
+            generated.increment();
+        }
+
+        private Map<String, Object> stats() {
+            long refillCount = refills.sum();
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("key", key);
+            out.put("depth", size.get());
+            out.put("lastUsed", lastUsed);
+            out.put("hits", hits.sum());
+            out.put("misses", misses.sum());
+            out.put("generated", generated.sum());
+            out.put("duplicates", duplicates.sum());
+            out.put("refills", refillCount);
+            out.put("refilling", refilling.get());
+            out.put("lastRefillMs", lastRefillMs.get());
+            out.put("avgRefillMs", refillCount == 0 ? 0 : totalRefillMs.sum() / refillCount);
+            return out;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.pub_game_be.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pub_game_be.domain.question.Question;
+import com.pub_game_be.dto.QuestionDto;
+import com.pub_game_be.dto.QuestionOptionDto;
+import com.pub_game_be.repository.QuestionOptionRepository;
+import com.pub_game_be.repository.QuestionRepository;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 📚 Letture della banca domande per REST. Le liste complete ({@code GET /questions} e per categoria)
+ * restano entity come sempre, servite dalla query cache e dalle regioni di secondo livello.
+ * Per banche grandi ci sono le proiezioni DTO a pagine keyset ({@code id > after}), opzioni di ogni pagina
+ * con una sola query IN; l'export NDJSON scorre le stesse pagine e scrive ogni riga appena letta,
+ * quindi in memoria c'è al massimo una pagina qualunque sia la dimensione della banca.
+ */
+@Service
+public class QuestionReadService {
+
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final QuestionRepository questionRepository;
+    private final QuestionOptionRepository questionOptionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int exportBatch;
+
+    private final LongAdder pages = new LongAdder();
+    private final LongAdder exports = new LongAdder();
+    private final LongAdder exportedRows = new LongAdder();
+
+    public QuestionReadService(QuestionRepository questionRepository,
+            QuestionOptionRepository questionOptionRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${game.questions.export-batch:500}") int exportBatch) {
+        this.questionRepository = questionRepository;
+        this.questionOptionRepository = questionOptionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.exportBatch = exportBatch;
+    }
+
+    /**
+     * Fino a {@code limit} domande con id maggiore di {@code after}, in ordine di id.
+     */
+    public List<QuestionDto> page(long after, int limit) {
+        pages.increment();
+        return withOptions(questionRepository.findDtosAfter(after, Limit.of(limit)));
+    }
+
+    /**
+     * Tutte le domande con le opzioni già caricate (a blocchi di 50, o dalla regione "question.options"),
+     * così la serializzazione non dipende da una sessione ancora aperta.
+     */
+    public List<Question> all() {
+        return withInitializedOptions(questionRepository::findAll);
+    }
+
+    public List<Question> byCategory(Long categoryId) {
+        return withInitializedOptions(() -> questionRepository.findByCategoryId(categoryId));
+    }
+
+    /**
+     * 📤 Tutta la banca come NDJSON (una domanda per riga), flush a ogni pagina.
+     */
+    public long exportNdjson(OutputStream out) throws IOException {
+        exports.increment();
+        long rows = 0;
+        long after = 0;
+        while (true) {
+            List<QuestionDto> batch = withOptions(questionRepository.findDtosAfter(after, Limit.of(exportBatch)));
+            for (QuestionDto question : batch) {
+                out.write(objectMapper.writeValueAsBytes(question));
+                out.write(NEWLINE);
+            }
+            out.flush();
+            rows += batch.size();
+            exportedRows.add(batch.size());
+            if (batch.size() < exportBatch) {
+                return rows;
+            }
+            after = batch.get(batch.size() - 1).id;
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("exportBatch", exportBatch);
+        out.put("pages", pages.sum());
+        out.put("exports", exports.sum());
+        out.put("exportedRows", exportedRows.sum());
+        return out;
+    }
+
+    private List<Question> withInitializedOptions(Supplier<List<Question>> query) {
+        return transactionTemplate.execute(status -> {
+            List<Question> questions = query.get();
+            questions.forEach(question -> Hibernate.initialize(question.getOptions()));
+            return questions;
+        });
+    }
+
+    private List<QuestionDto> withOptions(List<QuestionDto> questions) {
+        if (questions.isEmpty()) {
+            return questions;
+        }
+        Map<Long, QuestionDto> byId = new HashMap<>(questions.size() * 2);
+        for (QuestionDto question : questions) {
+            byId.put(question.id, question);
+        }
+        for (QuestionOptionDto option : questionOptionRepository.findDtosByQuestionIds(byId.keySet())) {
+            QuestionDto question = byId.get(option.questionId);
+            if (question != null) {
+                question.options.add(option);
+            }
+        }
+        return questions;
+    }
+}
@@ -0,0 +1,68 @@
+package com.pub_game_be.service;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * ✅ Regole di validità di una domanda QUIZ / TRUE_FALSE, le stesse per le risposte di Groq
+ * ({@link QuestionGeneratorService}) e per l'import massivo ({@link QuestionImportService}).
+ */
+public final class QuizJsonValidator {
+
+    private QuizJsonValidator() {
+    }
+
+    public static boolean isValid(JSONObject jsonObj, String type) {
+        try {
+            if (!jsonObj.has("correctAnswer") || !jsonObj.has("options")) {
+                return false;
+            }
+
+            String correctAnswer = jsonObj.getString("correctAnswer");
+            JSONArray options = jsonObj.getJSONArray("options");
+
+            if ("TRUE_FALSE".equalsIgnoreCase(type)) {
+                if (options.length() != 2) {
+                    return false;
+                }
+
+                boolean hasVero = false;
+                boolean hasFalso = false;
+                for (int i = 0; i < options.length(); i++) {
+                    String opt = options.getString(i);
+                    if ("VERO".equals(opt))
+                        hasVero = true;
+                    if ("FALSO".equals(opt))
+                        hasFalso = true;
+                }
+
+                if (!hasVero || !hasFalso) {
+                    return false;
+                }
+
+                if (!"VERO".equals(correctAnswer) && !"FALSO".equals(correctAnswer)) {
+                    return false;
+                }
+
+                return true;
+            }
+
+            boolean found = false;
+            for (int i = 0; i < options.length(); i++) {
+                if (options.getString(i).equals(correctAnswer)) {
+                    found = true;
+                    break;
+                }
+            }
+
+            if (!found) {
+                return false;
+            }
+
+            return true;
+
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.pub_game_be.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 🔗 Single-flight: richieste identiche concorrenti condividono lo stesso CompletableFuture,
+ * quindi una sola chiamata all'AI invece di una per ogni doppio tap o TV.
+ */
+@Component
+public class RequestCoalescer {
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public static String key(Object... parts) {
+        StringJoiner joiner = new StringJoiner("|");
+        for (Object part : parts) {
+            joiner.add(part == null ? "" : part.toString().trim().toLowerCase(Locale.ROOT));
+        }
+        return joiner.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> supplier) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw e;
+            }
+        }
+
+        executed.increment();
+        try {
+            T result = supplier.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("executed", executed.sum());
+        out.put("coalesced", coalesced.sum());
+        out.put("inFlight", inFlight.size());
+        return out;
+    }
+}
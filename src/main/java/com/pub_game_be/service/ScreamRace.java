@@ -0,0 +1,222 @@
+package com.pub_game_be.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🏁 Stato di una singola gara di urla (una per partita). Nessun lock: il progresso di ogni corsia
+ * è un AtomicLong in millesimi di punto percentuale, l'ordine d'arrivo un array indicizzato per posizione
+ * (riempito prima di contare l'arrivo come pubblicato) e la fine della gara un flag che si alza una sola volta.
+ * <p>
+ * Ogni corsia ha il suo {@link TokenBucket}: i campioni oltre {@code samplesPerSecond} non muovono la corsia
+ * ma ne lasciano il picco, che il primo campione ammesso raccoglie (urlare più spesso non fa correre di più).
+ */
+public class ScreamRace {
+
+    public static final long FINISH = 100_000;
+    public static final int MAX_LANES = 256;
+
+    private final int gameId;
+    private final int finishersToEnd;
+    private final double samplesPerSecond;
+    private final int sampleBurst;
+
+    private final Map<String, Lane> lanesByName = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<Lane> lanesBySlot = new AtomicReferenceArray<>(MAX_LANES);
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private final AtomicInteger finishCounter = new AtomicInteger();
+    private final AtomicInteger publishedFinishers = new AtomicInteger();
+    private final AtomicReferenceArray<Lane> finishers;
+    private final AtomicBoolean ended = new AtomicBoolean();
+    private final Queue<Lane> dirtyLanes = new ConcurrentLinkedQueue<>();
+    private final LongAdder droppedSamples = new LongAdder();
+    private volatile long lastActivity = System.currentTimeMillis();
+
+    public ScreamRace(int gameId, int finishersToEnd, double samplesPerSecond, int sampleBurst) {
+        this.gameId = gameId;
+        this.finishersToEnd = finishersToEnd;
+        this.samplesPerSecond = samplesPerSecond;
+        this.sampleBurst = sampleBurst;
+        this.finishers = new AtomicReferenceArray<>(finishersToEnd);
+    }
+
+    /**
+     * Esito di un urlo: {@code position > 0} solo per l'urlo che porta la corsia al traguardo,
+     * {@code endedRace} solo per l'arrivo che chiude la gara (l'ultimo a essere registrato,
+     * non per forza quello con la posizione più alta).
+     */
+    public record ScreamOutcome(Lane lane, double progress, int position, boolean endedRace) {
+    }
+
+    public static final class Lane {
+        private final String playerName;
+        private final int slot;
+        private final AtomicLong progress = new AtomicLong();
+        private final AtomicBoolean dirty = new AtomicBoolean();
+        private final TokenBucket samples;
+        private final AtomicLong droppedPeakBits = new AtomicLong();
+        private volatile double lastIntensity;
+        private volatile int position;
+
+        private Lane(String playerName, int slot, TokenBucket samples) {
+            this.playerName = playerName;
+            this.slot = slot;
+            this.samples = samples;
+        }
+
+        public String getPlayerName() {
+            return playerName;
+        }
+
+        /**
+         * Indice per il canale binario, -1 se le corsie sono esaurite.
+         */
+        public int getSlot() {
+            return slot;
+        }
+
+        public double getProgress() {
+            return progress.get() / 1000.0;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+
+        public double getLastIntensity() {
+            return lastIntensity;
+        }
+    }
+
+    public int getGameId() {
+        return gameId;
+    }
+
+    public boolean isEnded() {
+        return ended.get();
+    }
+
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    public long getDroppedSamples() {
+        return droppedSamples.sum();
+    }
+
+    public Lane lane(String playerName) {
+        return lanesByName.computeIfAbsent(playerName, name -> {
+            int slot = nextSlot.getAndIncrement();
+            TokenBucket samples = new TokenBucket(samplesPerSecond, sampleBurst);
+            if (slot >= MAX_LANES) {
+                return new Lane(name, -1, samples);
+            }
+            Lane lane = new Lane(name, slot, samples);
+            lanesBySlot.set(slot, lane);
+            return lane;
+        });
+    }
+
+    public Lane laneBySlot(int slot) {
+        return slot >= 0 && slot < MAX_LANES ? lanesBySlot.get(slot) : null;
+    }
+
+    public Iterable<Lane> lanes() {
+        return lanesByName.values();
+    }
+
+    /**
+     * Passa il campione (intensità già 0-100) al rate limiter della corsia. Se c'è un gettone restituisce
+     * l'intensità da usare, cioè il massimo fra questa e i campioni scartati dall'ultimo ammesso;
+     * altrimenti ne conserva il picco e restituisce -1.
+     */
+    public double admit(Lane lane, double intensity) {
+        if (!lane.samples.tryAcquire()) {
+            lane.droppedPeakBits.accumulateAndGet(Double.doubleToLongBits(intensity),
+                    (peak, sample) -> Double.longBitsToDouble(sample) > Double.longBitsToDouble(peak) ? sample : peak);
+            droppedSamples.increment();
+            lastActivity = System.currentTimeMillis();
+            return -1;
+        }
+        double droppedPeak = Double.longBitsToDouble(lane.droppedPeakBits.getAndSet(0));
+        return Math.max(intensity, droppedPeak);
+    }
+
+    /**
+     * Somma {@code increment} (in punti percentuali) alla corsia, fermandosi a 100. Solo il thread
+     * che supera il traguardo prende la posizione, quindi l'ordine d'arrivo è corretto anche con
+     * urli concorrenti sulla stessa corsia o su corsie diverse.
+     * <p>
+     * La posizione presa non basta a chiudere la gara: il terzo può prenderla mentre il secondo
+     * non ha ancora scritto la sua. Ogni arrivato scrive prima la sua cella in {@code finishers} e poi
+     * incrementa {@code publishedFinishers}; chiude la gara chi porta quel contatore a {@code finishersToEnd},
+     * e a quel punto tutte le celle sono visibili.
+     */
+    public ScreamOutcome advance(Lane lane, double increment, double intensity) {
+        lastActivity = System.currentTimeMillis();
+        if (ended.get()) {
+            return new ScreamOutcome(lane, lane.getProgress(), 0, false);
+        }
+
+        long delta = Math.max(0, Math.round(increment * 1000));
+        long before = lane.progress.getAndAccumulate(delta, (current, add) -> Math.min(FINISH, current + add));
+        long after = Math.min(FINISH, before + delta);
+
+        lane.lastIntensity = intensity;
+        if (lane.dirty.compareAndSet(false, true)) {
+            dirtyLanes.add(lane);
+        }
+
+        if (before >= FINISH || after < FINISH) {
+            return new ScreamOutcome(lane, after / 1000.0, 0, false);
+        }
+
+        int position = finishCounter.incrementAndGet();
+        if (position > finishersToEnd) {
+            return new ScreamOutcome(lane, after / 1000.0, 0, false);
+        }
+        lane.position = position;
+        finishers.set(position - 1, lane);
+        boolean endedRace = publishedFinishers.incrementAndGet() == finishersToEnd && ended.compareAndSet(false, true);
+        return new ScreamOutcome(lane, after / 1000.0, position, endedRace);
+    }
+
+    /**
+     * Corsie cambiate dall'ultima chiamata, ognuna una volta sola anche se ha urlato cento volte.
+     * Il flag si abbassa prima di leggere il progresso, così un urlo concorrente rimette la corsia in coda.
+     */
+    public List<Lane> drainDirtyLanes() {
+        List<Lane> drained = new ArrayList<>();
+        Lane lane;
+        while ((lane = dirtyLanes.poll()) != null) {
+            lane.dirty.set(false);
+            drained.add(lane);
+        }
+        return drained;
+    }
+
+    /**
+     * Classifica finale: nome → posizione di chi ha tagliato il traguardo, in ordine d'arrivo.
+     * Completa quando {@link #isEnded()}; prima contiene solo gli arrivi già registrati.
+     */
+    public Map<String, Integer> finishOrder() {
+        Map<String, Integer> standings = new LinkedHashMap<>();
+        for (int i = 0; i < finishers.length(); i++) {
+            Lane lane = finishers.get(i);
+            if (lane != null) {
+                standings.put(lane.playerName, i + 1);
+            }
+        }
+        return standings;
+    }
+}
@@ -0,0 +1,232 @@
+package com.pub_game_be.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🎤 Registro delle gare di urla, una {@link ScreamRace} per partita: due pub che giocano insieme
+ * non si toccano più lo stato, e gli urli di partite diverse non si contendono nessun lock.
+ * Le gare ferme da {@code scream.idle-evict-ms} vengono rimosse; i progressi escono a tick fissi
+ * ({@code scream.broadcast-hz}) come snapshot aggregati.
+ * <p>
+ * Sul percorso dell'urlo si logga solo a DEBUG, un evento ogni {@code scream.log-sample-every},
+ * con i campi come coppie chiave/valore (finiscono come campi nel log strutturato del profilo prod).
+ */
+@Service
+public class ScreamRaceEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(ScreamRaceEngine.class);
+
+    private static final int FINISHERS_TO_END = 3;
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final LeaderboardService leaderboardService;
+    private final long idleEvictMs;
+    private final double samplesPerSecond;
+    private final int sampleBurst;
+    private final LogSampler screamLog;
+    private final LogSampler droppedLog;
+
+    private final Map<Integer, ScreamRace> races = new ConcurrentHashMap<>();
+
+    private final LongAdder screams = new LongAdder();
+    private final LongAdder droppedSamples = new LongAdder();
+    private final LongAdder finishes = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder snapshots = new LongAdder();
+    private final LongAdder lanesSent = new LongAdder();
+
+    public ScreamRaceEngine(SimpMessagingTemplate messagingTemplate,
+            LeaderboardService leaderboardService,
+            @Value("${scream.idle-evict-ms:600000}") long idleEvictMs,
+            @Value("${scream.rate.samples-per-second:20}") double samplesPerSecond,
+            @Value("${scream.rate.burst:5}") int sampleBurst,
+            @Value("${scream.log-sample-every:500}") long logSampleEvery) {
+        this.messagingTemplate = messagingTemplate;
+        this.leaderboardService = leaderboardService;
+        this.idleEvictMs = idleEvictMs;
+        this.samplesPerSecond = samplesPerSecond;
+        this.sampleBurst = sampleBurst;
+        this.screamLog = new LogSampler(logSampleEvery);
+        this.droppedLog = new LogSampler(logSampleEvery);
+    }
+
+    public ScreamRace race(int gameId) {
+        return races.computeIfAbsent(gameId, id -> new ScreamRace(id, FINISHERS_TO_END, samplesPerSecond, sampleBurst));
+    }
+
+    /**
+     * 🎤 Un urlo del giocatore: avanza la corsia e pubblica arrivo e fine gara.
+     * Oltre {@code scream.rate.samples-per-second} per corsia il campione viene scartato (ne resta il picco).
+     */
+    public ScreamRace.ScreamOutcome scream(int gameId, String playerName, double intensity) {
+        ScreamRace race = race(gameId);
+        return scream(race, race.lane(playerName), intensity);
+    }
+
+    public ScreamRace.ScreamOutcome scream(ScreamRace race, ScreamRace.Lane lane, double intensity) {
+        screams.increment();
+        // Clamp 0-100; NaN e infiniti dal client STOMP contano come silenzio
+        double clamped = Double.isFinite(intensity) ? Math.max(0, Math.min(100, intensity)) : 0;
+
+        // 🪣 Telefono troppo zelante: il campione non muove la corsia
+        clamped = race.admit(lane, clamped);
+        if (clamped < 0) {
+            droppedSamples.increment();
+            if (log.isDebugEnabled() && droppedLog.sample()) {
+                log.atDebug().addKeyValue("gameId", race.getGameId()).addKeyValue("player", lane.getPlayerName())
+                        .log("🪣 Campione oltre il limite della corsia ({} scartati in totale)", droppedLog.count());
+            }
+            return new ScreamRace.ScreamOutcome(lane, lane.getProgress(), 0, false);
+        }
+
+        // 🏃 Calcola avanzamento (intensity / 20 = max 5% per urlo)
+        ScreamRace.ScreamOutcome outcome = race.advance(lane, clamped / 20.0, clamped);
+
+        if (log.isDebugEnabled() && screamLog.sample()) {
+            log.atDebug().addKeyValue("gameId", race.getGameId()).addKeyValue("player", lane.getPlayerName())
+                    .addKeyValue("intensity", clamped).addKeyValue("progress", outcome.progress())
+                    .log("🎤 Urlo ({} in totale)", screamLog.count());
+        }
+
+        // 🏁 Traguardo tagliato da questo urlo
+        if (outcome.position() > 0) {
+            finishes.increment();
+            log.atInfo().addKeyValue("gameId", race.getGameId())
+                    .log("🏆 {} ha finito in posizione {}!", lane.getPlayerName(), outcome.position());
+
+            Map<String, Object> winnerMsg = new HashMap<>();
+            winnerMsg.put("action", "PLAYER_FINISHED");
+            winnerMsg.put("playerName", lane.getPlayerName());
+            winnerMsg.put("position", outcome.position());
+            int points = calculatePoints(outcome.position());
+            winnerMsg.put("points", points);
+            leaderboardService.award(race.getGameId(), lane.getPlayerName(), points);
+
+            messagingTemplate.convertAndSend("/topic/game/" + race.getGameId(), Optional.of(winnerMsg));
+        }
+
+        if (outcome.endedRace()) {
+            endRace(race);
+        }
+
+        return outcome;
+    }
+
+    /**
+     * 📡 Un tick del broadcaster: per ogni gara con corsie cambiate manda un solo SCREAM_SNAPSHOT
+     * con tutte le corsie aggiornate, invece di un messaggio per ogni urlo. Arrivi e fine gara
+     * restano immediati (li pubblica {@link #scream}).
+     */
+    @Scheduled(fixedRateString = "#{1000 / ${scream.broadcast-hz:15}}")
+    public void broadcastSnapshots() {
+        ticks.increment();
+        for (ScreamRace race : races.values()) {
+            List<ScreamRace.Lane> changed = race.drainDirtyLanes();
+            if (changed.isEmpty()) {
+                continue;
+            }
+
+            List<Map<String, Object>> updates = new ArrayList<>(changed.size());
+            for (ScreamRace.Lane lane : changed) {
+                Map<String, Object> update = new HashMap<>();
+                update.put("playerName", lane.getPlayerName());
+                update.put("slot", lane.getSlot());
+                update.put("progress", lane.getProgress());
+                update.put("intensity", lane.getLastIntensity());
+                updates.add(update);
+            }
+
+            Map<String, Object> snapshotMsg = new HashMap<>();
+            snapshotMsg.put("action", "SCREAM_SNAPSHOT");
+            snapshotMsg.put("updates", updates);
+
+            messagingTemplate.convertAndSend("/topic/game/" + race.getGameId(), Optional.of(snapshotMsg));
+            snapshots.increment();
+            lanesSent.add(updates.size());
+        }
+    }
+
+    /**
+     * 🔄 Nuova gara per la partita: la vecchia viene buttata intera.
+     */
+    public void reset(int gameId) {
+        races.remove(gameId);
+    }
+
+    @Scheduled(fixedDelayString = "${scream.evict-check-ms:60000}")
+    public void evictIdleRaces() {
+        long cutoff = System.currentTimeMillis() - idleEvictMs;
+        races.values().removeIf(race -> {
+            if (race.getLastActivity() < cutoff) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("activeRaces", races.size());
+        out.put("screams", screams.sum());
+        out.put("droppedSamples", droppedSamples.sum());
+        out.put("finishes", finishes.sum());
+        out.put("evictedRaces", evictions.sum());
+        out.put("ticks", ticks.sum());
+        out.put("snapshotMessages", snapshots.sum());
+        out.put("lanesInSnapshots", lanesSent.sum());
+        long screamCount = screams.sum();
+        out.put("screamsPerSnapshot", snapshots.sum() == 0 ? 0.0 : (double) screamCount / snapshots.sum());
+
+        Map<Integer, Long> droppedByGame = new TreeMap<>();
+        for (ScreamRace race : races.values()) {
+            droppedByGame.put(race.getGameId(), race.getDroppedSamples());
+        }
+        out.put("droppedByGame", droppedByGame);
+        return out;
+    }
+
+    /**
+     * 🏁 Termina la gara
+     */
+    private void endRace(ScreamRace race) {
+        Map<String, Integer> standings = race.finishOrder();
+
+        Map<String, Object> endMsg = new HashMap<>();
+        endMsg.put("action", "RACE_ENDED");
+        endMsg.put("finalStandings", standings);
+
+        messagingTemplate.convertAndSend("/topic/game/" + race.getGameId(), Optional.of(endMsg));
+
+        log.atInfo().addKeyValue("gameId", race.getGameId())
+                .log("🏁 Gara {} terminata! Classifica finale: {}", race.getGameId(), standings);
+    }
+
+    /**
+     * 🎯 Calcola punti in base alla posizione
+     */
+    public static int calculatePoints(int position) {
+        return switch (position) {
+            case 1 -> 1000;
+            case 2 -> 500;
+            case 3 -> 250;
+            default -> 0;
+        };
+    }
+}
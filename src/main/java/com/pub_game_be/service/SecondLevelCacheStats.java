@@ -0,0 +1,61 @@
+package com.pub_game_be.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 🗄️ Statistiche della cache di secondo livello di Hibernate per regione (le stesse di ehcache.xml)
+ * e della query cache. {@code jdbcStatements} dice quante query sono arrivate davvero al database.
+ */
+@Component
+public class SecondLevelCacheStats {
+
+    private static final List<String> REGIONS = List.of("category", "question", "question.options", "question_option");
+
+    private final Statistics statistics;
+
+    public SecondLevelCacheStats(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String region : REGIONS) {
+            CacheRegionStatistics regionStats = statistics.getDomainDataRegionStatistics(region);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("hits", regionStats.getHitCount());
+            entry.put("misses", regionStats.getMissCount());
+            entry.put("puts", regionStats.getPutCount());
+            // Via JCache il conteggio non è disponibile (Long.MIN_VALUE): meglio null che un numero finto
+            long entries = regionStats.getElementCountInMemory();
+            entry.put("entries", entries < 0 ? null : entries);
+            entry.put("hitRatio", ratio(regionStats.getHitCount(), regionStats.getMissCount()));
+            regions.put(region, entry);
+        }
+
+        Map<String, Object> queries = new LinkedHashMap<>();
+        queries.put("hits", statistics.getQueryCacheHitCount());
+        queries.put("misses", statistics.getQueryCacheMissCount());
+        queries.put("puts", statistics.getQueryCachePutCount());
+        queries.put("hitRatio", ratio(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount()));
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", statistics.isStatisticsEnabled());
+        out.put("regions", regions);
+        out.put("queryCache", queries);
+        out.put("jdbcStatements", statistics.getPrepareStatementCount());
+        return out;
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
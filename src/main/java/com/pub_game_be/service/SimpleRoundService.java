@@ -1,46 +1,33 @@
 package com.pub_game_be.service;
 
-import com.pub_game_be.domain.category.Category;
 import com.pub_game_be.domain.enums.GameType;
 import com.pub_game_be.domain.enums.RoundStatus;
 import com.pub_game_be.domain.game.Game;
 import com.pub_game_be.domain.game_round.GameRound;
 import com.pub_game_be.domain.question.Question;
-import com.pub_game_be.repository.CategoryRepository;
 import com.pub_game_be.repository.GameRoundRepository;
-import com.pub_game_be.repository.QuestionRepository;
 import org.jspecify.annotations.NonNull;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.Random;
-
 @Service
 public class SimpleRoundService {
 
-    private final QuestionRepository questionRepository;
-    private final CategoryRepository categoryRepository;
+    private final QuestionBank questionBank;
     private final GameRoundRepository gameRoundRepository;
 
-    public SimpleRoundService(QuestionRepository questionRepository,
-            CategoryRepository categoryRepository,
+    public SimpleRoundService(QuestionBank questionBank,
             GameRoundRepository gameRoundRepository) {
-        this.questionRepository = questionRepository;
-        this.categoryRepository = categoryRepository;
+        this.questionBank = questionBank;
         this.gameRoundRepository = gameRoundRepository;
     }
 
+    /**
+     * 🎴 Categoria a caso, poi domanda dal mazzo della partita per quella categoria e la difficoltà richiesta:
+     * nessuna SELECT, e nessuna domanda ripetuta finché il mazzo non è finito. Resta solo l'insert del round.
+     */
     public GameRound createRound(Game game, String difficulty) {
-        List<Category> allCategories = categoryRepository.findAll();
-        if (allCategories.isEmpty()) {
-            throw new RuntimeException("Nessuna categoria trovata nel database!");
-        }
-
-        Category randomCat = allCategories.get(new Random().nextInt(allCategories.size()));
-
-        Question question = questionRepository.findRandomByCategoryAndDifficulty(randomCat.getId(), difficulty)
-                .orElseThrow(() -> new RuntimeException("Nessuna domanda trovata per la categoria "
-                        + randomCat.getName() + " con difficoltà " + difficulty));
+        Question question = questionBank.draw(game.getId().intValue(), null, difficulty, null)
+                .orElseThrow(() -> new RuntimeException("Nessuna domanda trovata con difficoltà " + difficulty));
 
         GameRound round = getGameRound(game, question);
 
@@ -58,4 +45,4 @@ public class SimpleRoundService {
         round.setRoundIndex(1);
         return round;
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.pub_game_be.service;
 
+import jakarta.annotation.PreDestroy;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,6 +10,9 @@ import org.springframework.web.client.RestTemplate;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class TMDBImageService {
@@ -19,31 +23,73 @@ public class TMDBImageService {
     private final String TMDB_SEARCH_URL = "https://api.themoviedb.org/3/search/person";
     private final String TMDB_IMAGE_BASE = "https://image.tmdb.org/t/p/w500";
 
+    private final RestTemplate restTemplate;
+    private final CelebrityImageCache cache;
+
+    public TMDBImageService(RestTemplate restTemplate,
+            @Value("${tmdb.image-cache.max-entries:1000}") int maxEntries,
+            @Value("${tmdb.image-cache.positive-ttl-ms:604800000}") long positiveTtlMs,
+            @Value("${tmdb.image-cache.negative-ttl-ms:3600000}") long negativeTtlMs,
+            @Value("${tmdb.image-cache.file:}") String cacheFile) {
+        this.restTemplate = restTemplate;
+        this.cache = new CelebrityImageCache(maxEntries, positiveTtlMs, negativeTtlMs,
+                cacheFile == null || cacheFile.isBlank() ? null : Path.of(cacheFile));
+    }
+
+    public boolean isConfigured() {
+        return tmdbApiKey != null && !tmdbApiKey.isBlank();
+    }
+
+    /**
+     * URL della foto profilo TMDB, o null. Passa dalla cache: un nome senza foto resta negativo
+     * per il TTL breve, mentre un errore di rete non viene memorizzato e si riprova alla prossima.
+     */
     public String getCelebrityImageUrl(String celebrityName) {
+        if (celebrityName == null || celebrityName.isBlank()) {
+            return null;
+        }
+
+        Optional<Optional<String>> cached = cache.get(celebrityName);
+        if (cached.isPresent()) {
+            return cached.get().orElse(null);
+        }
+
         try {
-            RestTemplate restTemplate = new RestTemplate();
+            String imageUrl = searchProfileImage(celebrityName);
+            cache.put(celebrityName, imageUrl);
+            return imageUrl;
+        } catch (Exception e) {
+            return null;
+        }
+    }
 
-            String encodedName = URLEncoder.encode(celebrityName, StandardCharsets.UTF_8);
-            String url = String.format("%s?api_key=%s&query=%s&language=it-IT",
-                    TMDB_SEARCH_URL, tmdbApiKey, encodedName);
+    public Map<String, Object> stats() {
+        return cache.stats();
+    }
 
-            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
-            JSONObject json = new JSONObject(response.getBody());
-            JSONArray results = json.getJSONArray("results");
+    @PreDestroy
+    public void persistCache() {
+        cache.persist();
+    }
 
-            if (results.length() > 0) {
-                JSONObject person = results.getJSONObject(0);
-                String profilePath = person.optString("profile_path", null);
+    private String searchProfileImage(String celebrityName) {
+        String encodedName = URLEncoder.encode(celebrityName, StandardCharsets.UTF_8);
+        String url = String.format("%s?api_key=%s&query=%s&language=it-IT",
+                TMDB_SEARCH_URL, tmdbApiKey, encodedName);
 
-                if (profilePath != null && !profilePath.isEmpty()) {
-                    return TMDB_IMAGE_BASE + profilePath;
-                }
-            }
+        ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+        JSONObject json = new JSONObject(response.getBody());
+        JSONArray results = json.getJSONArray("results");
 
-            return null;
+        if (results.length() > 0) {
+            JSONObject person = results.getJSONObject(0);
+            String profilePath = person.optString("profile_path", null);
 
-        } catch (Exception e) {
-            return null;
+            if (profilePath != null && !profilePath.isEmpty()) {
+                return TMDB_IMAGE_BASE + profilePath;
+            }
         }
+
+        return null;
     }
 }
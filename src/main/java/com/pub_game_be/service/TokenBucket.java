@@ -0,0 +1,42 @@
+package com.pub_game_be.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 🪣 Token bucket senza lock (variante GCRA): invece di contare i gettoni tiene solo l'istante teorico
+ * del prossimo arrivo "in regola". Un campione passa se quell'istante non è più avanti di {@code burst}
+ * intervalli rispetto ad adesso; altrimenti viene rifiutato senza toccare lo stato.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * @param perSecond campioni al secondo sostenibili
+     * @param burst     campioni che possono arrivare tutti insieme dopo una pausa
+     */
+    public TokenBucket(double perSecond, int burst) {
+        this.intervalNanos = Math.max(1, Math.round(1_000_000_000L / perSecond));
+        this.burstNanos = intervalNanos * Math.max(0, burst - 1);
+    }
+
+    public boolean tryAcquire() {
+        return tryAcquire(System.nanoTime());
+    }
+
+    public boolean tryAcquire(long nowNanos) {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long base = tat == Long.MIN_VALUE || tat - nowNanos < 0 ? nowNanos : tat;
+            if (base - nowNanos > burstNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(tat, base + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+}
@@ -3,7 +3,8 @@ package com.pub_game_be;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// Il catalogo iTunes farebbe decine di chiamate di rete a ogni avvio del contesto di test
+@SpringBootTest(properties = "music.catalog.enabled=false")
 class PubGameBeApplicationTests {
 
     @Test
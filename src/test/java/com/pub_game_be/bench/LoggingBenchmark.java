@@ -0,0 +1,120 @@
+package com.pub_game_be.bench;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.pub_game_be.service.LogSampler;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ⏱️ Costo per urlo del log sul percorso caldo: il vecchio {@code System.out.println} con due
+ * {@code String.format} contro SLF4J sincrono, asincrono e il percorso attuale di ScreamRaceEngine
+ * (DEBUG spento + campionamento). Tutti scrivono su uno stream nullo, quindi la console vera
+ * costerebbe solo di più alle prime due righe.
+ * <p>
+ * Si lancia a mano come {@link ScreamDecodeBenchmark}.
+ */
+public class LoggingBenchmark {
+
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+
+    public static void main(String[] args) {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+
+        OutputStreamAppender<ILoggingEvent> sink = new OutputStreamAppender<>();
+        sink.setContext(context);
+        sink.setName("NULL");
+        sink.setEncoder(encoder(context));
+        sink.setOutputStream(OutputStream.nullOutputStream());
+        sink.start();
+
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(context);
+        async.setName("ASYNC");
+        async.setQueueSize(8192);
+        async.setDiscardingThreshold(1638);
+        async.setNeverBlock(true);
+        async.addAppender(sink);
+        async.start();
+
+        Logger syncLog = logger(context, "bench.sync", Level.INFO, sink);
+        Logger asyncLog = logger(context, "bench.async", Level.INFO, async);
+        Logger hotLog = logger(context, "bench.hot", Level.INFO, async);
+        Logger hotDebugLog = logger(context, "bench.hot.debug", Level.DEBUG, async);
+
+        PrintStream stdout = new PrintStream(OutputStream.nullOutputStream(), true, StandardCharsets.UTF_8);
+        LogSampler sampler = new LogSampler(500);
+        String player = "Tavolo 7";
+
+        System.out.printf("%-36s %10s%n", "percorso", "ns/urlo");
+        report("System.out + String.format (prima)", i -> {
+            double intensity = i % 100;
+            stdout.println("🎤 " + player + " urla! Intensità: " + String.format("%.1f", intensity)
+                    + " → Progresso: " + String.format("%.1f%%", intensity / 2));
+        });
+        report("SLF4J INFO sincrono", i -> syncLog.info("🎤 {} urla! Intensità: {} → Progresso: {}",
+                player, i % 100, (i % 100) / 2.0));
+        report("SLF4J INFO asincrono", i -> asyncLog.atInfo().addKeyValue("gameId", 42).addKeyValue("player", player)
+                .addKeyValue("intensity", i % 100).log("🎤 Urlo"));
+        report("DEBUG spento + campionato (dopo)", i -> {
+            if (hotLog.isDebugEnabled() && sampler.sample()) {
+                hotLog.atDebug().addKeyValue("gameId", 42).addKeyValue("player", player).log("🎤 Urlo");
+            }
+        });
+        report("DEBUG acceso, 1 su 500, asincrono", i -> {
+            if (hotDebugLog.isDebugEnabled() && sampler.sample()) {
+                hotDebugLog.atDebug().addKeyValue("gameId", 42).addKeyValue("player", player)
+                        .addKeyValue("intensity", i % 100).log("🎤 Urlo ({} in totale)", sampler.count());
+            }
+        });
+
+        context.stop();
+    }
+
+    private interface LogCall {
+        void run(int i);
+    }
+
+    private static void report(String name, LogCall call) {
+        for (int i = 0; i < WARMUP; i++) {
+            call.run(i);
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                call.run(i);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-36s %10.1f%n", name, (double) best / ITERATIONS);
+    }
+
+    private static PatternLayoutEncoder encoder(LoggerContext context) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5level [%thread] %logger{36} : %kvp %msg%n");
+        encoder.setCharset(StandardCharsets.UTF_8);
+        encoder.start();
+        return encoder;
+    }
+
+    private static Logger logger(LoggerContext context, String name, Level level, Appender<ILoggingEvent> appender) {
+        Logger logger = context.getLogger(name);
+        logger.setLevel(level);
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+        return logger;
+    }
+}
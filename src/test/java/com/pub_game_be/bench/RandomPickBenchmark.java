@@ -0,0 +1,127 @@
+package com.pub_game_be.bench;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * ⏱️ Pescata di una domanda a caso per (categoria, difficoltà): ORDER BY RAND() LIMIT 1 contro il
+ * campionamento per intervallo di id di {@code QuestionRepository} (MIN/MAX sull'indice + primo id &gt;= r).
+ * <p>
+ * Senza argomenti usa H2 in memoria; per il profilo MySQL:
+ * {@code java ... RandomPickBenchmark "jdbc:mysql://localhost:3306/pub_game_bench?createDatabaseIfNotExist=true" root root 300000}.
+ * Lavora su una tabella propria ({@code bench_question}) che ricrea a ogni lancio.
+ */
+public class RandomPickBenchmark {
+
+    private static final int CATEGORIES = 10;
+    private static final String[] DIFFICULTIES = {"EASY", "MEDIUM", "HARD"};
+
+    public static void main(String[] args) throws SQLException {
+        String url = args.length > 0 ? args[0] : "jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1";
+        String user = args.length > 1 ? args[1] : "sa";
+        String password = args.length > 2 ? args[2] : "";
+        int rows = args.length > 3 ? Integer.parseInt(args[3]) : 300_000;
+
+        try (Connection connection = DriverManager.getConnection(url, user, password)) {
+            populate(connection, rows);
+
+            String orderByRand = "SELECT * FROM bench_question WHERE category_id = ? AND difficulty = ? ORDER BY RAND() LIMIT 1";
+            String idRange = "SELECT MIN(id), MAX(id) FROM bench_question WHERE category_id = ? AND difficulty = ?";
+            String firstFrom = "SELECT * FROM bench_question WHERE category_id = ? AND difficulty = ? AND id >= ? ORDER BY id LIMIT 1";
+
+            System.out.printf("%s, %d righe (%d per filtro)%n", connection.getMetaData().getDatabaseProductName(),
+                    rows, rows / (CATEGORIES * DIFFICULTIES.length));
+            System.out.printf("%-22s %12s%n", "strategia", "µs/pescata");
+
+            try (PreparedStatement rand = connection.prepareStatement(orderByRand)) {
+                report("ORDER BY RAND()", 20, 200, () -> {
+                    bind(rand);
+                    return readId(rand);
+                });
+            }
+            try (PreparedStatement range = connection.prepareStatement(idRange);
+                 PreparedStatement first = connection.prepareStatement(firstFrom)) {
+                report("intervallo di id", 2_000, 20_000, () -> {
+                    long[] filter = bind(range);
+                    long min;
+                    long max;
+                    try (ResultSet rs = range.executeQuery()) {
+                        rs.next();
+                        min = rs.getLong(1);
+                        max = rs.getLong(2);
+                    }
+                    first.setLong(1, filter[0]);
+                    first.setString(2, DIFFICULTIES[(int) filter[1]]);
+                    first.setLong(3, ThreadLocalRandom.current().nextLong(min, max + 1));
+                    return readId(first);
+                });
+            }
+        }
+    }
+
+    private interface Pick {
+        long run() throws SQLException;
+    }
+
+    private static void report(String name, int warmup, int picks, Pick pick) throws SQLException {
+        long sink = 0;
+        for (int i = 0; i < warmup; i++) {
+            sink += pick.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < picks; i++) {
+            sink += pick.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-22s %12.1f   (sink %d)%n", name, elapsed / 1000.0 / picks, sink % 10);
+    }
+
+    private static long[] bind(PreparedStatement statement) throws SQLException {
+        int category = ThreadLocalRandom.current().nextInt(CATEGORIES) + 1;
+        int difficulty = ThreadLocalRandom.current().nextInt(DIFFICULTIES.length);
+        statement.setLong(1, category);
+        statement.setString(2, DIFFICULTIES[difficulty]);
+        return new long[]{category, difficulty};
+    }
+
+    private static long readId(PreparedStatement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            return rs.next() ? rs.getLong("id") : -1;
+        }
+    }
+
+    private static void populate(Connection connection, int rows) throws SQLException {
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DROP TABLE IF EXISTS bench_question");
+            ddl.execute("CREATE TABLE bench_question (id BIGINT AUTO_INCREMENT PRIMARY KEY, category_id BIGINT, "
+                    + "difficulty VARCHAR(16), type VARCHAR(16), text VARCHAR(255), correct_answer VARCHAR(255))");
+            ddl.execute("CREATE INDEX idx_bench_category_difficulty ON bench_question (category_id, difficulty, id)");
+        }
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO bench_question (category_id, difficulty, type, text, correct_answer) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                insert.setLong(1, i % CATEGORIES + 1);
+                insert.setString(2, DIFFICULTIES[(i / CATEGORIES) % DIFFICULTIES.length]);
+                insert.setString(3, i % 2 == 0 ? "QUIZ" : "TRUE_FALSE");
+                insert.setString(4, "Domanda di prova numero " + i + "?");
+                insert.setString(5, "Risposta " + i);
+                insert.addBatch();
+                if (i % 1000 == 999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+}
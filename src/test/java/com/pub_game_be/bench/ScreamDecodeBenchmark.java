@@ -0,0 +1,78 @@
+package com.pub_game_be.bench;
+
+import com.pub_game_be.dto.ScreamDto;
+import com.pub_game_be.dto.ScreamFrame;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompDecoder;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * ⏱️ Microbenchmark del decode di un urlo: frame STOMP + JSON {@link ScreamDto} (percorso {@code /app/scream})
+ * contro il frame binario {@link ScreamFrame} di {@code /ws-scream}.
+ * <p>
+ * Non è un test: si lancia a mano dopo {@code mvn test-compile}, ad esempio
+ * {@code java -cp "target/classes:target/test-classes:$(cat cp.txt)" com.pub_game_be.bench.ScreamDecodeBenchmark}
+ * con il classpath preso da {@code mvn dependency:build-classpath -Dmdep.outputFile=cp.txt}.
+ */
+public class ScreamDecodeBenchmark {
+
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+
+    public static void main(String[] args) throws Exception {
+        String json = "{\"gameId\":42,\"playerName\":\"Tavolo 7\",\"intensity\":73.5,\"timestamp\":1760000000000}";
+        byte[] jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+        byte[] stompBytes = ("SEND\ndestination:/app/scream\ncontent-type:application/json\ncontent-length:"
+                + jsonBytes.length + "\n\n" + json + "\0").getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer binary = ByteBuffer.allocate(ScreamFrame.SIZE);
+        ScreamFrame.write(binary, 42, 7, 73.5f, 1760000000000L);
+        binary.flip();
+
+        StompDecoder stompDecoder = new StompDecoder();
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+
+        Runnable stompJson = () -> {
+            List<Message<byte[]>> messages = stompDecoder.decode(ByteBuffer.wrap(stompBytes));
+            ScreamDto dto = jsonMapper.readValue(messages.get(0).getPayload(), ScreamDto.class);
+            sink += dto.gameId + (long) dto.intensity + dto.timestamp;
+        };
+        Runnable jsonOnly = () -> {
+            ScreamDto dto = jsonMapper.readValue(jsonBytes, ScreamDto.class);
+            sink += dto.gameId + (long) dto.intensity + dto.timestamp;
+        };
+        Runnable binaryFrame = () -> {
+            if (ScreamFrame.isValid(binary)) {
+                sink += ScreamFrame.gameId(binary) + ScreamFrame.slot(binary)
+                        + (long) ScreamFrame.intensity(binary) + ScreamFrame.timestamp(binary);
+            }
+        };
+
+        System.out.printf("%-22s %12s %14s%n", "percorso", "ns/urlo", "byte/urlo");
+        report("STOMP frame + JSON", stompJson, stompBytes.length);
+        report("solo JSON", jsonOnly, jsonBytes.length);
+        report("binario /ws-scream", binaryFrame, ScreamFrame.SIZE);
+        System.out.println("(sink " + sink + ")");
+    }
+
+    private static volatile long sink;
+
+    private static void report(String name, Runnable decode, int bytesPerMessage) {
+        for (int i = 0; i < WARMUP; i++) {
+            decode.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                decode.run();
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-22s %12.1f %14d%n", name, (double) best / ITERATIONS, bytesPerMessage);
+    }
+}
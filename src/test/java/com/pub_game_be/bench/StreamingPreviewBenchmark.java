@@ -0,0 +1,78 @@
+package com.pub_game_be.bench;
+
+import com.pub_game_be.service.IncrementalJsonExtractor;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ⏱️ Tempo alla prima domanda con lo streaming di Groq: riproduce completion tipiche un token alla volta
+ * (circa 4 caratteri per token) al ritmo indicato, passandole a {@link IncrementalJsonExtractor} come fa
+ * {@code completeStreaming}, e misura quando esce QUESTION_PREVIEW rispetto alla fine dello stream.
+ * <p>
+ * Argomenti opzionali: attesa del primo token in ms (default 250) e token al secondo (default 250).
+ * Il dato vero per partita è in {@code /stats/llm} ({@code streaming.avgTimeToPreviewMs}).
+ * Si lancia a mano come {@link ScreamDecodeBenchmark}.
+ */
+public class StreamingPreviewBenchmark {
+
+    private static final String[][] COMPLETIONS = {
+            { "QUIZ", """
+                    {
+                      "question": "Quale pianeta del sistema solare ha il giorno più lungo del suo anno?",
+                      "options": ["Venere", "Mercurio", "Marte", "Giove"],
+                      "correctAnswer": "Venere",
+                      "type": "QUIZ",
+                      "explanation": "Venere ruota su sé stessa in circa 243 giorni terrestri, più dei 225 della sua orbita."
+                    }""" },
+            { "TRUE_FALSE", """
+                    {
+                      "question": "La Torre di Pisa si trova a Firenze.",
+                      "options": ["VERO", "FALSO"],
+                      "correctAnswer": "FALSO",
+                      "explanation": "La Torre di Pisa si trova a Pisa, non a Firenze: è il campanile della cattedrale.",
+                      "type": "TRUE_FALSE"
+                    }""" },
+            { "CHRONO", """
+                    {
+                      "type": "CHRONO",
+                      "question": "In che anno è caduto il Muro di Berlino?",
+                      "correctAnswer": 1989,
+                      "minYear": 1950,
+                      "maxYear": 2010,
+                      "explanation": "Il 9 novembre 1989 le guardie di confine aprirono i varchi dopo l'annuncio di Schabowski."
+                    }""" },
+    };
+
+    public static void main(String[] args) {
+        long firstTokenMs = args.length > 0 ? Long.parseLong(args[0]) : 250;
+        double tokensPerSecond = args.length > 1 ? Double.parseDouble(args[1]) : 250;
+        long tokenNanos = (long) (1_000_000_000L / tokensPerSecond);
+
+        System.out.printf("primo token %d ms, %.0f token/s%n", firstTokenMs, tokensPerSecond);
+        System.out.printf("%-12s %8s %14s %14s %10s%n", "tipo", "token", "anteprima ms", "completa ms", "anticipo");
+        for (String[] completion : COMPLETIONS) {
+            long[] best = { Long.MAX_VALUE, Long.MAX_VALUE };
+            int tokens = 0;
+            for (int round = 0; round < 3; round++) {
+                long[] previewAt = { -1 };
+                long start = System.nanoTime();
+                IncrementalJsonExtractor extractor = new IncrementalJsonExtractor("question",
+                        question -> previewAt[0] = System.nanoTime() - start);
+
+                LockSupport.parkNanos(firstTokenMs * 1_000_000);
+                String json = completion[1];
+                tokens = 0;
+                for (int i = 0; i < json.length(); i += 4) {
+                    extractor.feed(json.substring(i, Math.min(i + 4, json.length())));
+                    tokens++;
+                    LockSupport.parkNanos(tokenNanos);
+                }
+                long total = System.nanoTime() - start;
+                best[0] = Math.min(best[0], previewAt[0]);
+                best[1] = Math.min(best[1], total);
+            }
+            System.out.printf("%-12s %8d %14.0f %14.0f %9.0f%%%n", completion[0], tokens,
+                    best[0] / 1e6, best[1] / 1e6, 100.0 * (best[1] - best[0]) / best[1]);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.pub_game_be.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    @Test
+    void staysOpenUntilOpenMillisHavePassed() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 60_000);
+        breaker.onFailure();
+        assertTrue(breaker.allowsRequest());
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowsRequest());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void preCheckLetsTheProbeThroughOnceOpenMillisHavePassed() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 0);
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        // Il pre-controllo non cambia stato: la prova la prende tryAcquire
+        assertTrue(breaker.allowsRequest());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.allowsRequest());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowsRequest());
+    }
+}
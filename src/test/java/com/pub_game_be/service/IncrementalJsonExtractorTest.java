@@ -0,0 +1,72 @@
+package com.pub_game_be.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalJsonExtractorTest {
+
+    private final List<String> seen = new ArrayList<>();
+    private final IncrementalJsonExtractor extractor = new IncrementalJsonExtractor("question", seen::add);
+
+    @Test
+    void firesAsSoonAsTheFieldCloses() {
+        extractor.feed("{\"type\": \"QUIZ\", \"question\": \"Capitale d'Italia?\"");
+        assertEquals(List.of("Capitale d'Italia?"), seen);
+
+        extractor.feed(", \"options\": [\"Roma\"], \"question\": \"altra\"}");
+        assertEquals(1, seen.size());
+    }
+
+    @Test
+    void decodesEscapes() {
+        extractor.feed("{\"question\": \"Chi ha detto \\\"Eppur si muove\\\"?\\nRiga\\t2 \\\\ \\u00e8 \\/\"}");
+        assertEquals(List.of("Chi ha detto \"Eppur si muove\"?\nRiga\t2 \\ è /"), seen);
+    }
+
+    @Test
+    void handlesTokensSplitAnywhere() {
+        String json = "```json\n{\"question\": \"Quanto fa \\u0032+2? \\\"facile\\\"\", \"options\": [\"4\"]}\n```";
+        for (int i = 0; i < json.length(); i++) {
+            extractor.feed(String.valueOf(json.charAt(i)));
+        }
+        assertEquals(List.of("Quanto fa 2+2? \"facile\""), seen);
+    }
+
+    @Test
+    void ignoresFieldsInsideNestedObjectsAndArrays() {
+        extractor.feed("{\"meta\": {\"question\": \"annidata\", \"list\": [\"question\", {\"question\": \"x\"}]},");
+        assertTrue(seen.isEmpty());
+
+        extractor.feed(" \"hint\": \"question\", \"question\": \"quella giusta\"}");
+        assertEquals(List.of("quella giusta"), seen);
+    }
+
+    @Test
+    void doesNotTakeAKeyForAValue() {
+        extractor.feed("{\"answer\": \"question\", \"options\": null, \"question\": \"ok\"}");
+        assertEquals(List.of("ok"), seen);
+    }
+
+    @Test
+    void rejectsInvalidUnicodeEscapes() {
+        extractor.feed("{\"question\": \"rotto \\u00zz\"}");
+        assertTrue(extractor.isFailed());
+        assertTrue(seen.isEmpty());
+
+        extractor.feed("{\"question\": \"dopo\"}");
+        assertTrue(seen.isEmpty());
+    }
+
+    @Test
+    void validStreamIsNotFailed() {
+        extractor.feed("{\"question\": \"\\u00C8 vero?\"}");
+        assertFalse(extractor.isFailed());
+        assertEquals(List.of("È vero?"), seen);
+    }
+}
@@ -0,0 +1,99 @@
+package com.pub_game_be.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LeaderboardTest {
+
+    private final Leaderboard leaderboard = new Leaderboard(1);
+
+    @Test
+    void tiesGoToWhoReachedTheScoreFirst() {
+        leaderboard.award("anna", 500);
+        leaderboard.award("bruno", 300);
+        leaderboard.award("carla", 500);
+        leaderboard.award("bruno", 200);
+
+        assertEquals(List.of(
+                new Leaderboard.Standing(1, "anna", 500),
+                new Leaderboard.Standing(2, "carla", 500),
+                new Leaderboard.Standing(3, "bruno", 500)), leaderboard.top(10));
+    }
+
+    @Test
+    void zeroPointsDoNotChangeTheTieOrder() {
+        leaderboard.award("anna", 100);
+        leaderboard.award("bruno", 100);
+        assertEquals(100, leaderboard.award("anna", 0));
+
+        assertEquals(List.of("anna", "bruno"), names(leaderboard.top(10)));
+    }
+
+    @Test
+    void topKFollowsUpdates() {
+        leaderboard.award("anna", 100);
+        leaderboard.award("bruno", 200);
+        leaderboard.award("carla", 300);
+        leaderboard.award("dario", 400);
+        assertEquals(List.of("dario", "carla"), names(leaderboard.top(2)));
+
+        assertEquals(600, leaderboard.award("anna", 500));
+        assertEquals(List.of("anna", "dario"), names(leaderboard.top(2)));
+
+        leaderboard.award("bruno", 250);
+        assertEquals(List.of("anna", "bruno", "dario"), names(leaderboard.top(3)));
+        assertEquals(4, leaderboard.size());
+        assertEquals(4, leaderboard.top(100).size());
+        assertTrue(leaderboard.top(0).isEmpty());
+    }
+
+    @Test
+    void growsPastTheInitialSixteenPlayers() {
+        Random random = new Random(42);
+        Map<String, Long> expected = new HashMap<>();
+        for (int round = 0; round < 20; round++) {
+            for (int p = 0; p < 100; p++) {
+                String name = "giocatore" + p;
+                long points = random.nextInt(4) * 250L;
+                expected.merge(name, points, Long::sum);
+                assertEquals(expected.get(name), leaderboard.award(name, points));
+            }
+        }
+
+        assertEquals(100, leaderboard.size());
+        List<Leaderboard.Standing> all = leaderboard.top(100);
+        assertEquals(100, all.size());
+        for (int i = 0; i < all.size(); i++) {
+            Leaderboard.Standing standing = all.get(i);
+            assertEquals(i + 1, standing.rank());
+            assertEquals(expected.get(standing.playerName()), standing.points());
+        }
+
+        List<Long> sorted = new ArrayList<>(expected.values());
+        sorted.sort(Comparator.reverseOrder());
+        assertEquals(sorted, all.stream().map(Leaderboard.Standing::points).toList());
+    }
+
+    @Test
+    void dirtyOncePerBatchOfAwards() {
+        assertFalse(leaderboard.drainDirty());
+        leaderboard.award("anna", 100);
+        leaderboard.award("bruno", 100);
+        assertTrue(leaderboard.drainDirty());
+        assertFalse(leaderboard.drainDirty());
+    }
+
+    private static List<String> names(List<Leaderboard.Standing> standings) {
+        return standings.stream().map(Leaderboard.Standing::playerName).toList();
+    }
+}
@@ -0,0 +1,133 @@
+package com.pub_game_be.service;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuestionImportReaderTest {
+
+    private static final String HEADER = "category,type,difficulty,question,options,correctAnswer\n";
+
+    @Test
+    void csvQuotedFieldsKeepCommasNewlinesAndDoubledQuotes() throws Exception {
+        List<QuestionImportReader.Row> rows = read(QuestionImportReader.Format.CSV, HEADER
+                + "Letteratura,QUIZ,MEDIUM,\"Chi ha scritto \"\"I Promessi Sposi\"\", il romanzo?\","
+                + "\"Manzoni|Verga|Foscolo, Ugo|Leopardi\",Manzoni\n"
+                + "Storia,QUIZ,EASY,\"Prima riga\nseconda riga\",A|B|C|D,A\n");
+
+        assertEquals(2, rows.size());
+        JSONObject first = rows.get(0).json();
+        assertEquals("Chi ha scritto \"I Promessi Sposi\", il romanzo?", first.getString("question"));
+        assertEquals(List.of("Manzoni", "Verga", "Foscolo, Ugo", "Leopardi"), options(first));
+        assertEquals("Manzoni", first.getString("correctAnswer"));
+        assertEquals("Letteratura", first.getString("category"));
+        assertEquals("MEDIUM", first.getString("difficulty"));
+        assertEquals("QUIZ", first.getString("type"));
+
+        assertEquals("Prima riga\nseconda riga", rows.get(1).json().getString("question"));
+    }
+
+    @Test
+    void csvLineNumbersCountHeaderBlankLinesAndMultilineRecords() throws Exception {
+        List<QuestionImportReader.Row> rows = read(QuestionImportReader.Format.CSV, HEADER
+                + "Storia,QUIZ,EASY,Uno?,A|B,A\n"
+                + "\n"
+                + "Storia,QUIZ,EASY,\"Due\nsu\ntre righe?\",A|B,A\n"
+                + "Storia,QUIZ,EASY,Tre?,A|B,A");
+
+        assertEquals(List.of(2L, 4L, 7L), rows.stream().map(QuestionImportReader.Row::line).toList());
+        assertEquals("Tre?", rows.get(2).json().getString("question"));
+    }
+
+    @Test
+    void csvHandlesCrlfAndHeaderCaseAndMissingColumns() throws Exception {
+        List<QuestionImportReader.Row> rows = read(QuestionImportReader.Format.CSV,
+                "Category,Question,Options,CorrectAnswer\r\n"
+                        + "Sport,Quanti giocatori in una squadra di calcio?,10|11,11\r\n"
+                        + "Sport,Manca tutto\r\n");
+
+        assertEquals(2, rows.size());
+        JSONObject first = rows.get(0).json();
+        assertEquals("Quanti giocatori in una squadra di calcio?", first.getString("question"));
+        assertEquals(List.of("10", "11"), options(first));
+        assertEquals("11", first.getString("correctAnswer"));
+        assertFalse(first.has("difficulty"));
+        assertFalse(first.has("type"));
+
+        JSONObject second = rows.get(1).json();
+        assertEquals("", second.getString("correctAnswer"));
+        assertEquals(0, second.getJSONArray("options").length());
+        assertEquals(3, rows.get(1).line());
+    }
+
+    @Test
+    void jsonlReportsInvalidLinesWithTheirNumber() throws Exception {
+        List<QuestionImportReader.Row> rows = read(QuestionImportReader.Format.JSONL,
+                "{\"question\": \"Uno?\", \"options\": [\"A\", \"B\"], \"correctAnswer\": \"A\", \"category\": \"Storia\"}\n"
+                        + "\n"
+                        + "{\"question\": \"rotta\", \n"
+                        + "{\"question\": \"Quattro?\", \"options\": [\"A\", \"B\"], \"correctAnswer\": \"B\", \"category\": \"Storia\"}\n");
+
+        assertEquals(3, rows.size());
+        assertEquals(1, rows.get(0).line());
+        assertNull(rows.get(0).error());
+
+        assertEquals(3, rows.get(1).line());
+        assertNull(rows.get(1).json());
+        assertNotNull(rows.get(1).error());
+        assertTrue(rows.get(1).error().startsWith("JSON non valido"), rows.get(1).error());
+
+        assertEquals(4, rows.get(2).line());
+        assertEquals("Quattro?", rows.get(2).json().getString("question"));
+    }
+
+    @Test
+    void jsonlAcceptsExportRows() throws Exception {
+        List<QuestionImportReader.Row> rows = read(QuestionImportReader.Format.JSONL,
+                "{\"id\": 7, \"text\": \"Capitale d'Italia?\", \"categoryName\": \"Geografia\", \"type\": \"QUIZ\", "
+                        + "\"options\": [{\"id\": 1, \"value\": \"Roma\", \"correct\": true}, {\"id\": 2, \"value\": \"Milano\", \"correct\": false}], "
+                        + "\"correctAnswer\": \"Roma\"}\n");
+
+        JSONObject json = rows.get(0).json();
+        assertEquals("Capitale d'Italia?", json.getString("question"));
+        assertEquals("Geografia", json.getString("category"));
+        assertEquals(List.of("Roma", "Milano"), options(json));
+    }
+
+    @Test
+    void emptyInputHasNoRows() throws Exception {
+        assertTrue(read(QuestionImportReader.Format.CSV, "").isEmpty());
+        assertTrue(read(QuestionImportReader.Format.CSV, HEADER).isEmpty());
+        assertTrue(read(QuestionImportReader.Format.JSONL, "\n\n").isEmpty());
+    }
+
+    private static List<QuestionImportReader.Row> read(QuestionImportReader.Format format, String text) throws IOException {
+        QuestionImportReader reader = new QuestionImportReader(new StringReader(text), format);
+        List<QuestionImportReader.Row> rows = new ArrayList<>();
+        QuestionImportReader.Row row;
+        while ((row = reader.next()) != null) {
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static List<String> options(JSONObject json) throws Exception {
+        JSONArray array = json.getJSONArray("options");
+        List<String> options = new ArrayList<>();
+        for (int i = 0; i < array.length(); i++) {
+            options.add(array.getString(i));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,95 @@
+package com.pub_game_be.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScreamRaceTest {
+
+    private static final int FINISHERS = 3;
+    private static final int PLAYERS = 8;
+
+    @Test
+    void finishOrderFollowsWhoCrossesFirst() {
+        ScreamRace race = new ScreamRace(1, FINISHERS, 1000, 1000);
+        ScreamRace.Lane anna = race.lane("anna");
+        ScreamRace.Lane bruno = race.lane("bruno");
+        ScreamRace.Lane carla = race.lane("carla");
+
+        assertEquals(0, race.advance(bruno, 60, 50).position());
+        assertEquals(1, race.advance(carla, 100, 50).position());
+        assertEquals(2, race.advance(bruno, 60, 50).position());
+        assertEquals(0, race.advance(bruno, 10, 50).position());
+        assertFalse(race.isEnded());
+
+        ScreamRace.ScreamOutcome last = race.advance(anna, 100, 50);
+        assertEquals(3, last.position());
+        assertTrue(last.endedRace());
+        assertEquals(List.of("carla", "bruno", "anna"), new ArrayList<>(race.finishOrder().keySet()));
+        assertEquals(Map.of("carla", 1, "bruno", 2, "anna", 3), race.finishOrder());
+    }
+
+    @Test
+    void concurrentFinishersAllAppearInTheStandingsSeenByTheClosingThread() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(PLAYERS);
+        try {
+            for (int round = 0; round < 500; round++) {
+                ScreamRace race = new ScreamRace(round, FINISHERS, 1000, 1000);
+                CyclicBarrier start = new CyclicBarrier(PLAYERS);
+                List<Future<Result>> results = new ArrayList<>();
+                for (int p = 0; p < PLAYERS; p++) {
+                    ScreamRace.Lane lane = race.lane("p" + p);
+                    results.add(pool.submit(() -> {
+                        start.await();
+                        ScreamRace.ScreamOutcome outcome = race.advance(lane, 100, 80);
+                        // Come fa il motore: la classifica si legge subito, dal thread che ha chiuso la gara
+                        return new Result(outcome, outcome.endedRace() ? race.finishOrder() : null);
+                    }));
+                }
+
+                Map<String, Integer> closingStandings = null;
+                Set<Integer> positions = new HashSet<>();
+                int closers = 0;
+                for (Future<Result> future : results) {
+                    Result result = future.get(5, TimeUnit.SECONDS);
+                    if (result.outcome.position() > 0) {
+                        assertTrue(positions.add(result.outcome.position()), "posizione doppia");
+                    }
+                    if (result.outcome.endedRace()) {
+                        closers++;
+                        closingStandings = result.standings;
+                    }
+                }
+
+                assertEquals(Set.of(1, 2, 3), positions);
+                assertEquals(1, closers);
+                assertNotNull(closingStandings);
+                assertEquals(FINISHERS, closingStandings.size(), "classifica incompleta: " + closingStandings);
+                assertEquals(Set.of(1, 2, 3), new HashSet<>(closingStandings.values()));
+                for (Map.Entry<String, Integer> entry : closingStandings.entrySet()) {
+                    assertEquals(entry.getValue(), race.lane(entry.getKey()).getPosition());
+                }
+                assertTrue(race.isEnded());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private record Result(ScreamRace.ScreamOutcome outcome, Map<String, Integer> standings) {
+    }
+}
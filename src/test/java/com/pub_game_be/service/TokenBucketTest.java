@@ -0,0 +1,121 @@
+package com.pub_game_be.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    void burstPassesThenRejects() {
+        TokenBucket bucket = new TokenBucket(10, 3);
+        long now = 1_000 * MS;
+
+        assertTrue(bucket.tryAcquire(now));
+        assertTrue(bucket.tryAcquire(now));
+        assertTrue(bucket.tryAcquire(now));
+        assertFalse(bucket.tryAcquire(now));
+        assertFalse(bucket.tryAcquire(now + 99 * MS));
+
+        assertTrue(bucket.tryAcquire(now + 100 * MS));
+        assertFalse(bucket.tryAcquire(now + 100 * MS));
+    }
+
+    @Test
+    void pauseRefillsTheBurstButNoMore() {
+        TokenBucket bucket = new TokenBucket(10, 3);
+        long now = 0;
+        for (int i = 0; i < 3; i++) {
+            assertTrue(bucket.tryAcquire(now));
+        }
+
+        now += 10_000 * MS;
+        int passed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (bucket.tryAcquire(now)) {
+                passed++;
+            }
+        }
+        assertEquals(3, passed);
+    }
+
+    @Test
+    void steadyRateIsHeldOverTime() {
+        TokenBucket bucket = new TokenBucket(20, 5);
+
+        // Al ritmo giusto passa tutto
+        long now = 0;
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(bucket.tryAcquire(now), "campione " + i);
+            now += 50 * MS;
+        }
+
+        // Al doppio del ritmo passa il burst più metà dei campioni
+        now += 10_000 * MS;
+        int passed = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (bucket.tryAcquire(now)) {
+                passed++;
+            }
+            now += 25 * MS;
+        }
+        assertTrue(passed >= 500 && passed <= 505, "passati " + passed);
+    }
+
+    @Test
+    void firstCallWorksWhateverTheClockSays() {
+        // System.nanoTime() può essere negativo, anche vicino al valore sentinella
+        for (long start : new long[] { Long.MIN_VALUE, Long.MIN_VALUE + 1, -5_000_000_000L, 0, Long.MAX_VALUE - 1_000 * MS }) {
+            TokenBucket bucket = new TokenBucket(10, 2);
+            assertTrue(bucket.tryAcquire(start), "primo campione a " + start);
+            assertTrue(bucket.tryAcquire(start), "burst a " + start);
+            assertFalse(bucket.tryAcquire(start), "oltre il burst a " + start);
+            assertTrue(bucket.tryAcquire(start + 100 * MS), "dopo un intervallo a " + start);
+        }
+    }
+
+    @Test
+    void concurrentCallersShareTheSameBurst() throws Exception {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 200; round++) {
+                TokenBucket bucket = new TokenBucket(10, 5);
+                long now = round * 1_000 * MS;
+                AtomicInteger passed = new AtomicInteger();
+                CyclicBarrier start = new CyclicBarrier(threads);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    futures.add(pool.submit(() -> {
+                        start.await();
+                        for (int i = 0; i < 100; i++) {
+                            if (bucket.tryAcquire(now)) {
+                                passed.incrementAndGet();
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(5, TimeUnit.SECONDS);
+                }
+                assertEquals(5, passed.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}